@@ -0,0 +1,56 @@
+package com.example.benchmark;
+
+import com.example.SpringBootTestApplication;
+import com.example.employee.Employee;
+import com.example.employee.EmployeeService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Starts the application for a benchmark: embedded H2 (in MySQL mode) unless '-Dbenchmark.datasource.url' points elsewhere,
+ * no SQL logging, no findById cache unless a benchmark asks for it.
+ */
+final class BenchmarkApplication {
+
+    private static final String DEFAULT_URL = "jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+
+        // command line arguments, so they win over application.properties
+        var args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + System.getProperty("benchmark.datasource.url", DEFAULT_URL),
+                "--spring.datasource.username=" + System.getProperty("benchmark.datasource.username", "sa"),
+                "--spring.datasource.password=" + System.getProperty("benchmark.datasource.password", ""),
+                "--spring.jpa.hibernate.ddl-auto=" + System.getProperty("benchmark.ddl-auto", "create-drop"),
+                "--spring.jpa.show-sql=false",
+                "--spring.cache.type=none",
+                "--server.port=0",
+                "--logging.level.root=WARN"
+        ));
+        for (var property : properties) {
+            args.add("--" + property);
+        }
+
+        return new SpringApplicationBuilder(SpringBootTestApplication.class)
+                .run(args.toArray(String[]::new));
+    }
+
+    // 'employee-0' .. 'employee-<rows - 1>', ages 18..67
+    static void seed(EmployeeService employeeService, int rows) {
+        employeeService.createAll(employees(0, rows));
+    }
+
+    static Iterator<Employee> employees(int from, int count) {
+        return IntStream.range(from, from + count)
+                .mapToObj(i -> new Employee("employee-" + i, 18 + i % 50))
+                .iterator();
+    }
+}
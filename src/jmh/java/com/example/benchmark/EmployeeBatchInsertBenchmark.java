@@ -0,0 +1,50 @@
+package com.example.benchmark;
+
+import com.example.employee.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk load throughput in rows per second: 'createAll' (JDBC batches, pooled ids) against 'create' called in a loop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EmployeeBatchInsertBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        employeeService = context.getBean(EmployeeService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int createAll() {
+        return employeeService.createAll(BenchmarkApplication.employees(0, ROWS));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void createInLoop() {
+        var employees = BenchmarkApplication.employees(0, ROWS);
+        while (employees.hasNext()) {
+            employeeService.create(employees.next());
+        }
+    }
+}
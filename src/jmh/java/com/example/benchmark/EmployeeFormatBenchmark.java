@@ -0,0 +1,91 @@
+package com.example.benchmark;
+
+import com.example.employee.Employee;
+import com.example.employee.EmployeeDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The REST API's encodings side by side: JSON against CBOR and Smile, for a single employee and for lists.
+ * Payload sizes (plain and gzipped, as 'server.compression' would send them) are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EmployeeFormatBenchmark {
+
+    @Param({ "json", "cbor", "smile" })
+    private String format;
+
+    @Param({ "1", "100", "10000" })
+    private int size;
+
+    private ObjectMapper objectMapper;
+
+    private EmployeeDto employee;
+    private List<EmployeeDto> employees;
+
+    private byte[] employeeBytes;
+    private byte[] employeesBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        objectMapper = switch (format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+
+        employees = IntStream.range(0, size)
+                .mapToObj(i -> new EmployeeDto((long) i + 1, "employee-" + i, 18 + i % 50, 0L))
+                .toList();
+        employee = employees.get(0);
+
+        employeeBytes = objectMapper.writeValueAsBytes(employee);
+        employeesBytes = objectMapper.writeValueAsBytes(employees);
+
+        System.out.printf("%n%s, %d employees: %d bytes, %d gzipped (one employee: %d bytes)%n",
+                format, size, employeesBytes.length, gzip(employeesBytes).length, employeeBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializeEmployee() throws IOException {
+        return objectMapper.writeValueAsBytes(employee);
+    }
+
+    @Benchmark
+    public Employee deserializeEmployee() throws IOException {
+        return objectMapper.readValue(employeeBytes, Employee.class);
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws IOException {
+        return objectMapper.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public List<Employee> deserializeList() throws IOException {
+        return objectMapper.readValue(employeesBytes, new TypeReference<>() {});
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        var gzipped = new ByteArrayOutputStream();
+        try (var out = new GZIPOutputStream(gzipped)) {
+            out.write(bytes);
+        }
+        return gzipped.toByteArray();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.benchmark;
+
+import com.example.employee.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end GET /api/employees/{id} over HTTP with many concurrent clients,
+ * on Tomcat's platform thread pool and in virtual-thread mode. SampleTime reports the latency percentiles (p0.99).
+ * Run it against MySQL ('-Dbenchmark.datasource.url=...') for numbers with real I/O waits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(64)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class EmployeeHttpBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({ "false", "true" })
+    private String virtualThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private long firstId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        context = BenchmarkApplication.start("app.virtual-threads.enabled=" + virtualThreads);
+
+        var employeeService = context.getBean(EmployeeService.class);
+        BenchmarkApplication.seed(employeeService, ROWS);
+        firstId = employeeService.findPage(null, 1).content().get(0).id();
+
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/employees/";
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int findById() throws IOException, InterruptedException {
+
+        var request = HttpRequest.newBuilder(URI.create(baseUrl + (firstId + ThreadLocalRandom.current().nextInt(ROWS))))
+                .GET()
+                .build();
+
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.benchmark;
+
+import com.example.employee.Employee;
+import com.example.employee.EmployeeDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * JSON encoding and decoding of a single employee and of employee lists, as the REST controller does it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EmployeeJsonBenchmark {
+
+    @Param({ "1", "100", "10000" })
+    private int size;
+
+    private ObjectMapper objectMapper;
+
+    private EmployeeDto employee;
+    private List<EmployeeDto> employees;
+
+    private byte[] employeeJson;
+    private byte[] employeesJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        employees = IntStream.range(0, size)
+                .mapToObj(i -> new EmployeeDto((long) i + 1, "employee-" + i, 18 + i % 50, 0L))
+                .toList();
+        employee = employees.get(0);
+
+        employeeJson = objectMapper.writeValueAsBytes(employee);
+        employeesJson = objectMapper.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public byte[] serializeEmployee() throws IOException {
+        return objectMapper.writeValueAsBytes(employee);
+    }
+
+    @Benchmark
+    public Employee deserializeEmployee() throws IOException {
+        return objectMapper.readValue(employeeJson, Employee.class);
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws IOException {
+        return objectMapper.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public List<Employee> deserializeList() throws IOException {
+        return objectMapper.readValue(employeesJson, new TypeReference<>() {});
+    }
+}
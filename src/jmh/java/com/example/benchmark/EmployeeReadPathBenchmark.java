@@ -0,0 +1,79 @@
+package com.example.benchmark;
+
+import com.example.employee.Employee;
+import com.example.employee.EmployeeDto;
+import com.example.employee.EmployeeRepository;
+import com.example.employee.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The read paths as they were, loading managed Employee entities in a read-write transaction ('...Entities'),
+ * against the EmployeeDto projections in a read-only one that EmployeeService runs now ('...Dtos').
+ * Run with '-prof gc' for the allocation per operation ('gc.alloc.rate.norm'). The findById cache is off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EmployeeReadPathBenchmark {
+
+    @Param({ "1000" })
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private EmployeeRepository employeeRepository;
+    private TransactionTemplate readWriteTransaction;
+
+    private long firstId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        context = BenchmarkApplication.start();
+        employeeService = context.getBean(EmployeeService.class);
+        employeeRepository = context.getBean(EmployeeRepository.class);
+        readWriteTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        BenchmarkApplication.seed(employeeService, rows);
+        firstId = employeeService.findPage(null, 1).content().get(0).id();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Employee> findAllEntities() {
+        return readWriteTransaction.execute(status -> employeeRepository.findAll());
+    }
+
+    @Benchmark
+    public List<EmployeeDto> findAllDtos() {
+        return employeeService.findAll();
+    }
+
+    @Benchmark
+    public Employee findByIdEntity() {
+        return readWriteTransaction.execute(status -> employeeRepository.findById(randomId()).orElse(null));
+    }
+
+    @Benchmark
+    public EmployeeDto findByIdDto() {
+        return employeeService.findById(randomId());
+    }
+
+    private long randomId() {
+        return firstId + ThreadLocalRandom.current().nextInt(rows);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.benchmark;
+
+import com.example.config.SqlStatementCounter;
+import com.example.employee.*;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmployeeService CRUD at several table sizes. The findById cache is off, every call reaches the database.
+ * 'updateLoadThenMerge' is the load-then-save path (SELECT, dirty check, versioned UPDATE) for comparison with 'update'.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EmployeeServiceBenchmark {
+
+    @Param({ "10000", "100000" })
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private EmployeeRepository employeeRepository;
+    private TransactionTemplate transaction;
+
+    private long firstId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        context = BenchmarkApplication.start();
+        employeeService = context.getBean(EmployeeService.class);
+        employeeRepository = context.getBean(EmployeeRepository.class);
+        transaction = context.getBean(TransactionTemplate.class);
+
+        BenchmarkApplication.seed(employeeService, rows);
+        firstId = employeeService.findPage(null, 1).content().get(0).id();
+
+        // whether the searches below are served by the name and age indexes at this table size
+        // (run with '-Dbenchmark.datasource.url=jdbc:mysql://...' for MySQL's plans)
+        explain("name search", () -> employeeService.search("employee-12", null, null, null, 20), 0L, "employee-12%", 21);
+        explain("age search", () -> employeeService.search(null, 30, 35, null, 20), 0L, 30, 35, 21);
+    }
+
+    // the plan of the statement 'search' runs, as Hibernate generated it, with 'parameters' bound in their order there
+    private void explain(String name, Runnable search, Object... parameters) {
+
+        var sqlStatementCounter = context.getBean(SqlStatementCounter.class);
+        sqlStatementCounter.start();
+        search.run();
+        var sql = sqlStatementCounter.stop().get(0);
+
+        System.out.println(name + " (" + rows + " rows): " + sql);
+        context.getBean(JdbcTemplate.class)
+                .queryForList("EXPLAIN " + sql, parameters)
+                .forEach(plan -> System.out.println(name + " plan (" + rows + " rows): " + plan.values()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public EmployeeDto findById() {
+        return employeeService.findById(randomId());
+    }
+
+    @Benchmark
+    public EmployeePage findPage() {
+        return employeeService.findPage(randomId(), 20);
+    }
+
+    @Benchmark
+    public EmployeePage searchByNamePrefix() {
+        return employeeService.search("employee-" + ThreadLocalRandom.current().nextInt(100, 1000), null, null, null, 20);
+    }
+
+    @Benchmark
+    public EmployeePage searchByAgeRange() {
+        int minAge = ThreadLocalRandom.current().nextInt(18, 60);
+        return employeeService.search(null, minAge, minAge + 5, randomId(), 20);
+    }
+
+    @Benchmark
+    public Employee create() {
+        return employeeService.create(new Employee("created", 30));
+    }
+
+    @Benchmark
+    public Employee update() {
+        long id = randomId();
+        return employeeService.update(id, new Employee("updated-" + id, 30));
+    }
+
+    @Benchmark
+    public Employee updateLoadThenMerge() {
+        long id = randomId();
+        return transaction.execute(status -> employeeRepository.findById(id)
+                .map(employee -> {
+                    employee.setName("updated-" + id);
+                    employee.setAge(30);
+                    return employeeRepository.save(employee);
+                })
+                .orElse(null));
+    }
+
+    @Benchmark
+    public void createThenDelete() {
+        var employee = employeeService.create(new Employee("deleted", 30));
+        employeeService.deleteById(employee.getId());
+    }
+
+    private long randomId() {
+        return firstId + ThreadLocalRandom.current().nextInt(rows);
+    }
+}
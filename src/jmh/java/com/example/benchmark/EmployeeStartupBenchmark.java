@@ -0,0 +1,187 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launching the packaged application (built by 'mvn -Pbenchmark verify' before the benchmarks run)
+ * to its first successful GET /api/employees, in a fresh JVM every time:
+ *  - 'default'  - application.properties as it is ('ddl-auto=update', every bean created at startup)
+ *  - 'prod'     - the 'prod' profile: Flyway migrations instead of 'update', lazy initialization
+ *  - 'prod-cds' - the same from the extracted jar, with a class data sharing archive recorded by a training run
+ * '-p aot=true' runs the AOT-processed bean definitions, for a jar built with them: mvn -Pbenchmark,aot verify.
+ * Each launch gets an empty embedded H2 database unless '-Dbenchmark.datasource.url' is given. The warmup is off,
+ * it only holds back readiness, not the first request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class EmployeeStartupBenchmark {
+
+    private static final String H2_URL = "jdbc:h2:mem:startup;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    @Param({ "default", "prod", "prod-cds" })
+    private String mode;
+
+    @Param({ "false" })
+    private String aot;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    private Path workDirectory;
+    // how the application is started, without the JVM options and arguments of one launch
+    private List<String> classpath;
+    private Path archive;
+    private Process process;
+    private int port;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        var jar = Path.of(System.getProperty("benchmark.jar", "target/spring-boot-test-0.0.1-SNAPSHOT.jar")).toAbsolutePath();
+        if (!Files.exists(jar))
+            throw new IllegalStateException(jar + " not found, it is built by 'mvn -Pbenchmark verify'");
+
+        workDirectory = Files.createDirectories(Path.of("target", "startup-benchmark", mode)).toAbsolutePath();
+        var h2 = Path.of(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+        if (!mode.endsWith("-cds")) {
+            // the fat jar, with the H2 driver (a test dependency) added by Spring Boot's PropertiesLauncher
+            classpath = List.of("-Dloader.path=" + h2, "-cp", jar.toString(), "org.springframework.boot.loader.PropertiesLauncher");
+            return;
+        }
+
+        // CDS only covers classes loaded from a plain class path, not from the jars nested in the fat jar
+        var extracted = workDirectory.resolve("extracted");
+        run(List.of(tool("java"), "-Djarmode=layertools", "-jar", jar.toString(), "extract", "--destination", extracted.toString()));
+
+        // nor from a directory, so the application's own classes go into a jar of their own
+        var classes = workDirectory.resolve("application.jar");
+        Files.deleteIfExists(classes);
+        run(List.of(tool("jar"), "--create", "--file", classes.toString(), "-C", extracted.resolve("application/BOOT-INF/classes").toString(), "."));
+
+        var entries = new ArrayList<String>();
+        entries.add(classes.toString());
+        for (var layer : List.of("dependencies", "snapshot-dependencies")) {
+            if (Files.isDirectory(extracted.resolve(layer + "/BOOT-INF/lib")))
+                entries.add(extracted.resolve(layer + "/BOOT-INF/lib") + File.separator + "*");
+        }
+        entries.add(h2.toString());
+        classpath = List.of("-cp", String.join(File.pathSeparator, entries), "com.example.SpringBootTestApplication");
+
+        // the training run: the classes loaded up to the first request are archived when the JVM exits
+        archive = workDirectory.resolve("application.jsa");
+        Files.deleteIfExists(archive);
+        launch("-XX:ArchiveClassesAtExit=" + archive);
+        try {
+            awaitFirstRequest();
+        } finally {
+            stop();
+        }
+        if (!Files.exists(archive))
+            throw new IllegalStateException("The training run left no CDS archive, see " + workDirectory.resolve("application.log"));
+    }
+
+    @Benchmark
+    public int firstRequest() throws Exception {
+        launch(archive != null ? "-XX:SharedArchiveFile=" + archive : null);
+        return awaitFirstRequest();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            process.waitFor();
+            process = null;
+        }
+    }
+
+    private void launch(String jvmOption) throws IOException {
+
+        port = freePort();
+
+        var command = new ArrayList<String>();
+        command.add(tool("java"));
+        if (jvmOption != null)
+            command.add(jvmOption);
+        if (Boolean.parseBoolean(aot))
+            command.add("-Dspring.aot.enabled=true");
+        command.addAll(classpath);
+
+        var url = System.getProperty("benchmark.datasource.url", H2_URL);
+        command.add("--spring.datasource.url=" + url);
+        command.add("--spring.datasource.username=" + System.getProperty("benchmark.datasource.username", "sa"));
+        command.add("--spring.datasource.password=" + System.getProperty("benchmark.datasource.password", ""));
+        if (url.equals(H2_URL))
+            command.add("--spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect");
+        if (mode.startsWith("prod"))
+            command.add("--spring.profiles.active=prod");
+        command.add("--employees.warmup.enabled=false");
+        command.add("--server.port=" + port);
+        command.add("--logging.level.root=WARN");
+
+        process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(workDirectory.resolve("application.log").toFile()))
+                .start();
+    }
+
+    private int awaitFirstRequest() throws IOException, InterruptedException {
+
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/employees?limit=1"))
+                .timeout(Duration.ofSeconds(10))
+                .build();
+
+        long deadline = System.nanoTime() + START_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive())
+                throw new IllegalStateException("The application exited, see " + workDirectory.resolve("application.log"));
+            try {
+                var status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status == 200)
+                    return status;
+            } catch (ConnectException e) {
+                // not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("No successful request within " + START_TIMEOUT);
+    }
+
+    private static void run(List<String> command) throws IOException, InterruptedException {
+        var exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (exitCode != 0)
+            throw new IllegalStateException(String.join(" ", command) + " exited with " + exitCode);
+    }
+
+    private static String tool(String name) {
+        return Path.of(System.getProperty("java.home"), "bin", name).toString();
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.benchmark;
+
+import com.example.employee.Employee;
+import com.example.employee.EmployeeDto;
+import com.example.employee.EmployeePage;
+import com.example.employee.EmployeeProperties;
+import com.example.employee.EmployeeRows;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.View;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Thymeleaf rendering of 'employees/employees.html' for several list sizes, without the database in the way:
+ * the page is an {@link EmployeeRows} as the controller gives it, its chunks read from a list in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EmployeeTemplateBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private View view;
+    private int chunkSize;
+    // ids 1..size+1, so that the page has a next one
+    private List<EmployeeDto> employees;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        context = BenchmarkApplication.start();
+        view = context.getBean(ThymeleafViewResolver.class).resolveViewName("employees/employees", Locale.ENGLISH);
+        chunkSize = context.getBean(EmployeeProperties.class).getHtml().getChunkSize();
+
+        employees = IntStream.rangeClosed(0, size)
+                .mapToObj(i -> new EmployeeDto((long) i + 1, "employee-" + i, 18 + i % 50, 0L))
+                .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int render() throws Exception {
+
+        var servletContext = ((WebApplicationContext) context).getServletContext();
+
+        var request = new MockHttpServletRequest(servletContext, "GET", "/employees");
+        request.setAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE, context);
+        var response = new MockHttpServletResponse();
+
+        // the rows are read as they are iterated, a fresh page for every render
+        var model = new HashMap<String, Object>();
+        model.put("employees", new EmployeeRows(0, size, chunkSize, this::read));
+        model.put("limit", size);
+        model.put("newEmployee", new Employee());
+        view.render(model, request, response);
+
+        return response.getContentAsByteArray().length;
+    }
+
+    private EmployeePage read(long after, int limit) {
+        int from = (int) after;
+        int to = Math.min(from + limit, employees.size());
+        return new EmployeePage(employees.subList(from, to), to < employees.size() ? (long) to : null);
+    }
+}
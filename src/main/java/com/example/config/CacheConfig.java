@@ -0,0 +1,57 @@
+package com.example.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.util.StringUtils;
+
+/**
+ * 'spring.cache.type=caffeine' - the cache manager Spring Boot would have created from 'spring.cache.*',
+ * with caches that a read racing with a write can't refill with the row as it was before (see {@link FencedCaffeineCache}).
+ * Any other 'spring.cache.type' is left to Spring Boot.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.cache.type", havingValue = "caffeine")
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    @Bean
+    public CaffeineCacheManager cacheManager(CacheProperties cacheProperties) {
+
+        var cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new FencedCaffeineCache(name, cache, isAllowNullValues());
+            }
+        };
+
+        var spec = cacheProperties.getCaffeine().getSpec();
+        if (StringUtils.hasText(spec))
+            cacheManager.setCacheSpecification(spec);
+        if (!cacheProperties.getCacheNames().isEmpty())
+            cacheManager.setCacheNames(cacheProperties.getCacheNames());
+        return cacheManager;
+    }
+
+    // around every @Cacheable method, outside the cache interceptor (see @EnableCaching), so that no miss outlives its load
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor fencedCacheLoadAdvisor() {
+        var advisor = new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(null, Cacheable.class, true),
+                (MethodInterceptor) FencedCaffeineCache::load);
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+        return advisor;
+    }
+}
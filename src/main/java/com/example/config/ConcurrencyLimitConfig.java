@@ -0,0 +1,68 @@
+package com.example.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * 'app.concurrency-limit.enabled' - adaptive concurrency limits in front of the employee pages and API, see {@link ConcurrencyLimitFilter}.
+ * 'http.server.concurrency.limit', '.in.flight' and '.rejected' are tagged 'requests=read|write'.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ConcurrencyLimitConfig {
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationAvailability applicationAvailability;
+
+    // after the observation filter (HIGHEST_PRECEDENCE + 1), so rejected requests still show in 'http.server.requests'
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter() {
+
+        var filter = new ConcurrencyLimitFilter(
+                limit(properties.getRead(), "read"),
+                limit(properties.getWrite(), "write"),
+                rejected("read"),
+                rejected("write"),
+                Math.max(1, properties.getRetryAfter().toSeconds()),
+                () -> applicationAvailability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC);
+
+        var registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/employees/*", "/employees/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+
+    private GradientConcurrencyLimit limit(ConcurrencyLimitProperties.Limit limit, String requests) {
+
+        var concurrencyLimit = new GradientConcurrencyLimit(limit.getInitial(), limit.getMin(), limit.getMax(),
+                properties.getTolerance());
+
+        Gauge.builder("http.server.concurrency.limit", concurrencyLimit, GradientConcurrencyLimit::getLimit)
+                .description("Requests let through at a time, adjusted to their latency")
+                .tag("requests", requests)
+                .register(meterRegistry);
+        Gauge.builder("http.server.concurrency.in.flight", concurrencyLimit, GradientConcurrencyLimit::getInFlight)
+                .description("Requests being served")
+                .tag("requests", requests)
+                .register(meterRegistry);
+        return concurrencyLimit;
+    }
+
+    private Counter rejected(String requests) {
+        return Counter.builder("http.server.concurrency.rejected")
+                .description("Requests answered 503 for being over the limit")
+                .tag("requests", requests)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.config;
+
+import io.micrometer.core.instrument.Counter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Load shedding: a request over its {@link GradientConcurrencyLimit} is answered 503 with 'Retry-After' at once,
+ * instead of queueing for a Tomcat thread and then for a connection. Reads (GET/HEAD/OPTIONS) and writes have
+ * limits of their own, so slow writes don't shut out reads, nor the other way round.
+ */
+@RequiredArgsConstructor
+class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    // bulk transfers, which take as long as their size and the client's link make them
+    private static final Set<String> TRANSFER_PATHS = Set.of("/api/employees/export", "/api/employees/batch", "/api/employees/imports");
+
+    private final GradientConcurrencyLimit readLimit;
+    private final GradientConcurrencyLimit writeLimit;
+    private final Counter readsRejected;
+    private final Counter writesRejected;
+    // whole seconds
+    private final long retryAfter;
+    // whether the application has reported ready
+    private final BooleanSupplier ready;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        boolean read = READ_METHODS.contains(request.getMethod());
+        var limit = read ? readLimit : writeLimit;
+
+        if (!limit.tryAcquire()) {
+            (read ? readsRejected : writesRejected).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limit.release(isSampled(request) ? System.nanoTime() - start : -1);
+        }
+    }
+
+    // Whether how long the request took says how busy the server is. Not for a long-poll, which holds no thread once
+    // it has gone asynchronous, nor for a bulk transfer. Nor before readiness: those requests are the warmup's,
+    // and run code that hasn't been compiled yet
+    private boolean isSampled(HttpServletRequest request) {
+        return !request.isAsyncStarted()
+                && ready.getAsBoolean()
+                && !TRANSFER_PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+}
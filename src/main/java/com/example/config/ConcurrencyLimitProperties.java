@@ -0,0 +1,37 @@
+package com.example.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+@Getter @Setter
+public class ConcurrencyLimitProperties {
+
+    // requests to the employee endpoints over the limit get 503 at once; actuator (and the k8s probes) are never limited
+    private boolean enabled = true;
+    private Limit read = new Limit(20, 4, 200);
+    private Limit write = new Limit(10, 2, 100);
+    // how much slower than usual requests may get before the limits shrink
+    private double tolerance = 2.0;
+    // sent as 'Retry-After' with the 503
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    @Getter @Setter
+    public static class Limit {
+        private int initial;
+        private int min;
+        private int max;
+
+        public Limit() {
+        }
+
+        Limit(int initial, int min, int max) {
+            this.initial = initial;
+            this.min = min;
+            this.max = max;
+        }
+    }
+}
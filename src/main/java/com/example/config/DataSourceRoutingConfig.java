@@ -0,0 +1,90 @@
+package com.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+
+/**
+ * 'app.datasource.routing.enabled=true' - read-only transactions ('findAll', search, export)
+ * run on the 'app.datasource.routing.replicas', writes on 'spring.datasource'. So do reads whose result is shared
+ * between clients: the cached 'findById', the statistics and the snapshot (see {@link ReadWriteRoutingDataSource#onPrimary}).
+ * See {@link ReadWriteRoutingDataSource} and {@link ReadYourWritesFilter}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class DataSourceRoutingConfig {
+
+    private final DataSourceProperties dataSourceProperties;
+    private final DataSourceRoutingProperties routingProperties;
+
+    // what Spring Boot would have created from 'spring.datasource', now the primary behind the routing
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource() {
+        return dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+
+        var replicas = new ArrayList<HikariDataSource>();
+        for (var replica : routingProperties.getReplicas()) {
+            var dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(replica.getUrl())
+                    .username(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.determineUsername())
+                    .password(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.determinePassword())
+                    .build();
+            dataSource.setPoolName("replica-" + replicas.size());
+            dataSource.setReadOnly(true);
+            dataSource.setConnectionTimeout(routingProperties.getConnectionTimeout().toMillis());
+            // not beans, so Spring Boot doesn't bind their metrics as it does the primary's ('hikaricp.*', tagged with the pool name)
+            meterRegistry.ifAvailable(registry -> dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(dataSource);
+        }
+
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    @Bean
+    public SchedulingConfigurer replicaHealthCheck(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return registrar -> registrar.addFixedDelayTask(readWriteRoutingDataSource::checkReplicas,
+                routingProperties.getHealthCheckInterval());
+    }
+
+    // ahead of everything that may read, so the whole request sees the same routing
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+        var registration = new FilterRegistrationBean<>(new ReadYourWritesFilter(routingProperties.getReadYourWrites()));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
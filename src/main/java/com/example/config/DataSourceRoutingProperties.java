@@ -0,0 +1,33 @@
+package com.example.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.datasource.routing")
+@Getter @Setter
+public class DataSourceRoutingProperties {
+
+    // read-only transactions go to the replicas, everything else to 'spring.datasource'
+    private boolean enabled = false;
+    private List<Replica> replicas = new ArrayList<>();
+    // after a write, the same client reads from the primary for this long (longer than the replicas lag)
+    private Duration readYourWrites = Duration.ofSeconds(5);
+    // how often replicas are probed; one that fails is skipped until a probe succeeds again
+    private Duration healthCheckInterval = Duration.ofSeconds(10);
+    // how long a read waits for a replica connection before it goes to the primary and the replica is skipped
+    // (Hikari's default of 30s would hold every read that long once a replica is gone)
+    private Duration connectionTimeout = Duration.ofMillis(500);
+
+    @Getter @Setter
+    public static class Replica {
+        private String url;
+        // default to those of 'spring.datasource'
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Caffeine cache that a read-through can't refill with a value read before an eviction. The entry of a row is evicted
+ * once its write has committed, but a read of that row that started before the commit may only get to 'put' afterwards,
+ * and its value would then be served until it expires. So every eviction is stamped with a generation, a miss notes
+ * the generation it happened at, and the 'put' that follows it is dropped if the key has been evicted since.
+ */
+class FencedCaffeineCache extends CaffeineCache {
+
+    // evictions of more keys than this in the time of one read drop some of their fences, and those reads aren't cached
+    private static final int MAX_FENCES = 10_000;
+
+    private final AtomicLong generation = new AtomicLong();
+    // the generation of each key's last eviction
+    private final Cache<Object, Long> fences;
+    // at least the generation of every fence that is gone: dropped ones, and those of 'clear'
+    private final AtomicLong floor = new AtomicLong();
+    // the generation the last miss of each cache on this thread happened at, for the 'put' of what it then loads
+    private static final ThreadLocal<Map<FencedCaffeineCache, Long>> misses = new ThreadLocal<>();
+
+    FencedCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+        // an eviction listener runs as the fence is removed, so no 'put' sees it gone before 'floor' covers it
+        this.fences = Caffeine.newBuilder()
+                .maximumSize(MAX_FENCES)
+                .<Object, Long>evictionListener((key, fence, cause) -> floor.accumulateAndGet(fence, Math::max))
+                .build();
+    }
+
+    /**
+     * Runs a @Cacheable method (see CacheConfig). A miss is only consumed by the 'put' after the load, which doesn't come
+     * when the method throws or returns what 'unless' excludes: what it noted is dropped once the method is over,
+     * rather than fencing a later 'put' on this thread with its generation.
+     */
+    static Object load(MethodInvocation invocation) throws Throwable {
+        var enclosing = misses.get();
+        misses.remove();
+        try {
+            return invocation.proceed();
+        } finally {
+            if (enclosing != null)
+                misses.set(enclosing);
+            else
+                misses.remove();
+        }
+    }
+
+    // the read of a read-through ('get(key, type)' isn't one, it notes nothing)
+    @Override
+    public ValueWrapper get(Object key) {
+        long started = generation.get();
+        var value = super.get(key);
+        if (value == null) {
+            if (misses.get() == null)
+                misses.set(new HashMap<>());
+            misses.get().put(this, started);
+        }
+        return value;
+    }
+
+    // a value not preceded by a miss on this thread isn't a read-through, it is stored as it is
+    @Override
+    public void put(Object key, Object value) {
+
+        var pending = misses.get();
+        var started = pending != null ? pending.remove(this) : null;
+        if (started == null) {
+            super.put(key, value);
+            return;
+        }
+
+        // atomic with the evictions of 'key', which go through 'compute' too
+        var storeValue = toStoreValue(value);
+        getNativeCache().asMap().compute(key, (k, current) -> isFenced(k, started) ? current : storeValue);
+
+        // a 'clear' that ran meanwhile may have missed it
+        if (floor.get() > started)
+            getNativeCache().asMap().remove(key, storeValue);
+    }
+
+    @Override
+    public void evict(Object key) {
+        getNativeCache().asMap().compute(key, (k, current) -> {
+            fences.put(k, generation.incrementAndGet());
+            return null;
+        });
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        var present = getNativeCache().asMap().containsKey(key);
+        evict(key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        floor.accumulateAndGet(generation.incrementAndGet(), Math::max);
+        fences.invalidateAll();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        var notEmpty = !getNativeCache().asMap().isEmpty();
+        clear();
+        return notEmpty;
+    }
+
+    private boolean isFenced(Object key, long started) {
+        var fence = fences.getIfPresent(key);
+        return Math.max(floor.get(), fence != null ? fence : 0) > started;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that finds itself from latency, after Netflix's gradient limiter: a slow average of the latency
+ * is the baseline, and while requests take no longer than 'tolerance' times it the limit grows by about its square root
+ * (the queue a healthy server can absorb). When they get slower, the limit shrinks in proportion (by half at most per sample).
+ * While fewer than half the permits are in use the traffic, not the server, decides the latency, so the limit stays put.
+ */
+class GradientConcurrencyLimit {
+
+    // weight of each sample in the baseline, roughly an average over the last 500 requests
+    private static final double BASELINE_WEIGHT = 1.0 / 500;
+    // weight of each new estimate in the limit
+    private static final double SMOOTHING = 0.2;
+    // a sample counts as at most this many times 'tolerance' × baseline, so that one request that took minutes
+    // doesn't raise the baseline (and so the latency tolerated) for the hundreds after it
+    private static final double MAX_SAMPLE = 4;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    // in nanoseconds, 0 until the first sample
+    private double baseline;
+
+    GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+    }
+
+    // false - the limit is reached, the caller is to be turned away
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit)
+                return false;
+            if (inFlight.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    // 'latencyNanos' < 0 - the call says nothing about the server's latency (it went asynchronous)
+    void release(long latencyNanos) {
+        int current = inFlight.getAndDecrement();
+        if (latencyNanos >= 0)
+            update(Math.max(1, latencyNanos), current);
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long latency, int inFlightAtEnd) {
+
+        if (baseline != 0)
+            latency = Math.min(latency, (long) (MAX_SAMPLE * tolerance * baseline));
+        baseline = baseline == 0 ? latency : baseline * (1 - BASELINE_WEIGHT) + latency * BASELINE_WEIGHT;
+        // the server has got faster for good (say the database is back), the baseline follows quicker
+        if (baseline > 2 * latency)
+            baseline *= 0.95;
+
+        if (inFlightAtEnd < limit / 2)
+            return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / latency));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + estimate * SMOOTHING));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.config;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands out replica connections to read-only transactions (round robin over the healthy replicas), and primary ones
+ * to everything else. The transaction is only known to be read-only once it has begun, so this has to sit behind
+ * a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which asks for the connection at the first statement.
+ * A replica that fails to give a connection is skipped until {@link #checkReplicas()} finds it healthy again;
+ * with no healthy replica, reads fall back to the primary.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<? extends DataSource> replicas) {
+        this.primary = primary;
+        this.replicas = replicas.stream()
+                .map(Replica::new)
+                .toList();
+    }
+
+    // reads of the current thread go to the primary too, e.g. for a client that has just written
+    public static void setPrimaryOnly(boolean primaryOnly) {
+        if (primaryOnly)
+            PRIMARY_ONLY.set(true);
+        else
+            PRIMARY_ONLY.remove();
+    }
+
+    public static boolean isPrimaryOnly() {
+        return PRIMARY_ONLY.get() != null;
+    }
+
+    // Runs 'read' on the primary. For reads whose result other clients get too (a cache, an in-memory view of the table):
+    // from a lagging replica it could be older than writes those clients have already seen
+    public static <T> T onPrimary(Supplier<T> read) {
+        var previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(true);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null)
+                PRIMARY_ONLY.remove();
+        }
+    }
+
+    public static void runOnPrimary(Runnable read) {
+        onPrimary(() -> {
+            read.run();
+            return null;
+        });
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && PRIMARY_ONLY.get() == null) {
+            var replica = nextHealthyReplica();
+            if (replica != null) {
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException e) {
+                    replica.healthy = false;
+                }
+            }
+        }
+
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    public void checkReplicas() {
+        for (var replica : replicas) {
+            try (var connection = replica.dataSource.getConnection()) {
+                replica.healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                replica.healthy = false;
+            }
+        }
+    }
+
+    public int healthyReplicas() {
+        return (int) replicas.stream()
+                .filter(replica -> replica.healthy)
+                .count();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (var replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable)
+                closeable.close();
+        }
+    }
+
+    private Replica nextHealthyReplica() {
+        for (int i = 0; i < replicas.size(); i++) {
+            var replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (replica.healthy)
+                return replica;
+        }
+        return null;
+    }
+
+    private static class Replica {
+
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Read-your-writes for clients of the read replicas: a writing request (anything but GET/HEAD/OPTIONS) sets a cookie
+ * that lives for 'app.datasource.routing.read-your-writes', and while a client sends it back, its reads go to the primary.
+ */
+class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "read-primary";
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final int cookieMaxAge;
+
+    ReadYourWritesFilter(Duration readYourWrites) {
+        // whole seconds, rounded up
+        this.cookieMaxAge = (int) Math.max(1, (readYourWrites.toMillis() + 999) / 1000);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        boolean write = !READ_METHODS.contains(request.getMethod());
+        if (write) {
+            var cookie = new Cookie(COOKIE, "1");
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge(cookieMaxAge);
+            response.addCookie(cookie);
+        }
+
+        ReadWriteRoutingDataSource.setPrimaryOnly(write || WebUtils.getCookie(request, COOKIE) != null);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.setPrimaryOnly(false);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Records the SQL statements Hibernate prepares on the current thread between {@link #start()} and {@link #stop()}.
+ * Recordings nest, an inner one (e.g. a single request) is also seen by every outer one (e.g. a test around it).
+ * A JDBC batch is prepared once, so a batched insert of many rows counts as one statement per batch.
+ * Statements prepared on threads that have not called {@link #start()} are not recorded.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private final ThreadLocal<Deque<List<String>>> recordings = new ThreadLocal<>();
+
+    public void start() {
+        var threadRecordings = recordings.get();
+        if (threadRecordings == null) {
+            threadRecordings = new ArrayDeque<>();
+            recordings.set(threadRecordings);
+        }
+        threadRecordings.push(new ArrayList<>());
+    }
+
+    // statements of the innermost recording, which is closed
+    public List<String> stop() {
+        var threadRecordings = recordings.get();
+        if (threadRecordings == null)
+            return List.of();
+
+        var statements = threadRecordings.pop();
+        if (threadRecordings.isEmpty())
+            recordings.remove();
+        return statements;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        var threadRecordings = recordings.get();
+        if (threadRecordings != null)
+            threadRecordings.forEach(statements -> statements.add(sql));
+        return sql;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * 'app.virtual-threads.enabled=true' - Tomcat serves every request on its own virtual thread,
+ * and async work ('applicationTaskExecutor') runs on virtual threads too.
+ * The connection pool is then guarded by a {@link ConcurrencyLimitingDataSource}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    // HikariConfig's own default for 'maximumPoolSize'
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    // as many permits as the pool has connections, unless 'app.virtual-threads.max-db-concurrency' says otherwise
+    @Bean
+    public static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor(
+            @Value("${app.virtual-threads.max-db-concurrency:0}") int maxConcurrency,
+            @Value("${app.virtual-threads.db-acquire-timeout:30s}") Duration acquireTimeout) {
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikariDataSource))
+                    return bean;
+
+                int poolSize = hikariDataSource.getMaximumPoolSize() > 0
+                        ? hikariDataSource.getMaximumPoolSize()
+                        : DEFAULT_POOL_SIZE; // not set, Hikari falls back to its default when the pool starts
+
+                return new ConcurrencyLimitingDataSource(hikariDataSource,
+                        maxConcurrency > 0 ? maxConcurrency : poolSize,
+                        acquireTimeout);
+            }
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.employee;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// in-memory views of the table (statistics, snapshot) only take a write in once it has committed, a rolled back write must not count
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static boolean isDeferred() {
+        return TransactionSynchronizationManager.isSynchronizationActive();
+    }
+
+    // runs 'change' after the current transaction commits, or at once when there is none
+    static void run(Runnable change) {
+
+        if (!isDeferred()) {
+            change.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.employee;
+
+// employees per age, the rows of a GROUP BY on 'age' (null - employees without an age)
+public record AgeCount(Integer age, Long count) {
+}
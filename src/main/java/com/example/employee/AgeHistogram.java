@@ -0,0 +1,56 @@
+package com.example.employee;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// employees per age, small whatever the table size: one entry per distinct age
+class AgeHistogram {
+
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+    private long unknownAges;
+
+    synchronized void add(Integer age, long count) {
+        if (age == null)
+            unknownAges += count;
+        else
+            counts.merge(age, count, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    synchronized void addAll(AgeHistogram other) {
+        synchronized (other) {
+            other.counts.forEach(this::add);
+            unknownAges += other.unknownAges;
+        }
+    }
+
+    synchronized void replace(List<AgeCount> ageCounts) {
+        counts.clear();
+        unknownAges = 0;
+        ageCounts.forEach(ageCount -> add(ageCount.age(), ageCount.count()));
+    }
+
+    synchronized EmployeeStatistics statistics(int bucketWidth) {
+
+        long withAge = 0;
+        long ageSum = 0;
+        var histogram = new LinkedHashMap<String, Long>();
+
+        for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+            withAge += entry.getValue();
+            ageSum += entry.getKey() * entry.getValue();
+
+            int from = Math.floorDiv(entry.getKey(), bucketWidth) * bucketWidth;
+            histogram.merge(from + "-" + (from + bucketWidth - 1), entry.getValue(), Long::sum);
+        }
+        if (unknownAges > 0)
+            histogram.put("unknown", unknownAges);
+
+        return new EmployeeStatistics(withAge + unknownAges,
+                counts.isEmpty() ? null : counts.firstKey(),
+                counts.isEmpty() ? null : counts.lastKey(),
+                withAge == 0 ? null : (double) ageSum / withAge,
+                histogram);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.employee;
+
+/**
+ * Response body of the bulk endpoints: how many rows the operation touched.
+ */
+public record BulkResult(int affected) {
+}
@@ -0,0 +1,109 @@
+package com.example.employee;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RFC 4180 records read one at a time from a stream, so an upload of any size is never held in memory whole:
+ * fields separated by ',', quoted with '"' when they contain one of ',', '"' or a line break ('""' is a quote),
+ * records ended by CRLF or LF. The counterpart of {@link EmployeeExporter#exportCsv}.
+ */
+class CsvReader implements Closeable {
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[64 * 1024];
+    private int position;
+    private int limit;
+
+    private final StringBuilder field = new StringBuilder();
+    // the line the last record started on, for error messages
+    private long line;
+    private long nextLine = 1;
+
+    CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    long line() {
+        return line;
+    }
+
+    // the next record, null at the end of the stream
+    List<String> next() throws IOException {
+
+        int c = read();
+        if (c == EOF)
+            return null;
+
+        line = nextLine;
+        var fields = new ArrayList<String>();
+        while (true) {
+            field.setLength(0);
+
+            if (c == '"') {
+                while (true) {
+                    c = read();
+                    if (c == EOF)
+                        throw new IOException("Line " + line + ": quoted field not closed");
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"')
+                            break; // the closing quote
+                    } else if (c == '\n') {
+                        nextLine++;
+                    }
+                    field.append((char) c);
+                }
+                if (c != ',' && c != '\n' && c != '\r' && c != EOF)
+                    throw new IOException("Line " + line + ": unexpected '" + (char) c + "' after a quoted field");
+            } else {
+                while (c != ',' && c != '\n' && c != '\r' && c != EOF) {
+                    field.append((char) c);
+                    c = read();
+                }
+            }
+            fields.add(field.toString());
+
+            if (c == ',') {
+                c = read();
+                continue;
+            }
+            if (c == '\r' && peek() == '\n')
+                read();
+            if (c != EOF)
+                nextLine++;
+            return fields;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill())
+            return EOF;
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill())
+            return EOF;
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer);
+        if (read <= 0)
+            return false;
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
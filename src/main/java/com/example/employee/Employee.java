@@ -2,25 +2,47 @@ package com.example.employee;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "employees")
+@Table(name = "employees", indexes = {
+        @Index(name = "idx_employees_name", columnList = "name"),
+        @Index(name = "idx_employees_age", columnList = "age")
+})
 @NoArgsConstructor @AllArgsConstructor
 @Getter @Setter
 @EqualsAndHashCode
 @ToString
 public class Employee {
 
+    // ids handed out per round trip to 'employees_seq'
+    static final int ID_BLOCK = 50;
+
+    // IDENTITY would force an INSERT per persist and disable JDBC batching;
+    // a pooled sequence (a table on MySQL) hands out ids in blocks instead
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employees_seq")
+    @SequenceGenerator(name = "employees_seq", sequenceName = "employees_seq", allocationSize = ID_BLOCK)
     private Long id;
 
     private String name;
 
     private Integer age;
 
+    // bumped by every write, served as the ETag; the default covers rows that predate the column
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public Employee(String name, Integer age) {
         this.name = name;
         this.age = age;
     }
+
+    public Employee(Long id, String name, Integer age) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+    }
 }
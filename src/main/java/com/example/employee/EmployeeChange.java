@@ -0,0 +1,44 @@
+package com.example.employee;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One entry of the change log behind GET /api/employees/changes: the employee as a write left it
+ * (as it was before a DELETE). Rows are only ever inserted, by {@link EmployeeChangeRepository} in the transaction of the write.
+ * The sequence is taken at insert and not at commit, so two concurrent writes may commit out of order. The feed holds
+ * a change back until every change before it has committed (see 'EmployeeService.findChanges'), so a consumer
+ * passes the last sequence it got as the next 'since' and misses nothing.
+ */
+@Entity
+@Table(name = "employee_changes")
+@NoArgsConstructor
+@Getter
+public class EmployeeChange {
+
+    public enum Type { INSERT, UPDATE, DELETE }
+
+    // AUTO_INCREMENT, unlike the pooled 'employees_seq': ids handed out in blocks per instance would not follow insert order
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long sequence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 6)
+    private Type type;
+
+    @Column(nullable = false)
+    private Long employeeId;
+
+    private String name;
+
+    private Integer age;
+
+    private Long version;
+
+    // when the write recorded it, by the clock of the instance that made the write (null - recorded before there was one)
+    private Instant recordedAt;
+}
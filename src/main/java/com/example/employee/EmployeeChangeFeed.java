@@ -0,0 +1,140 @@
+package com.example.employee;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-polling over the change log: a poll that finds nothing new is held, without a thread, until a write commits
+ * or its wait is over. Writes through this instance wake held polls at once (on 'applicationTaskExecutor') and again
+ * once 'employees.changes.visibility-delay' has passed, when the feed serves their changes.
+ * Writes elsewhere are picked up every 'employees.changes.poll-interval'.
+ */
+@Component
+public class EmployeeChangeFeed implements SchedulingConfigurer {
+
+    // published by EmployeeService along with the changes it records, delivered once the transaction commits
+    record ChangesRecorded() {
+    }
+
+    private record Poll(long since, int size, DeferredResult<List<EmployeeChange>> result) {
+    }
+
+    private final EmployeeService employeeService;
+    private final EmployeeProperties employeeProperties;
+    private final AsyncTaskExecutor taskExecutor;
+    // that of the scheduled tasks (there is no TaskScheduler bean), it is set up once they are all configured
+    private volatile ScheduledTaskRegistrar registrar;
+
+    private final Set<Poll> polls = ConcurrentHashMap.newKeySet();
+    private final AtomicLong commits = new AtomicLong();
+
+    public EmployeeChangeFeed(EmployeeService employeeService,
+                              EmployeeProperties employeeProperties,
+                              @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) AsyncTaskExecutor taskExecutor) {
+        this.employeeService = employeeService;
+        this.employeeProperties = employeeProperties;
+        this.taskExecutor = taskExecutor;
+    }
+
+    public boolean isEnabled() {
+        return employeeProperties.getChanges().isEnabled();
+    }
+
+    // the changes after 'since', or, if there are none yet, the first ones to come within 'wait' (an empty list if none do)
+    public DeferredResult<List<EmployeeChange>> poll(long since, Integer limit, Duration wait) {
+
+        var maxWait = employeeProperties.getChanges().getMaxWait();
+        if (wait.compareTo(maxWait) > 0)
+            wait = maxWait;
+
+        var result = new DeferredResult<List<EmployeeChange>>(wait.toMillis(), List.of());
+
+        long commitsSeen = commits.get();
+        var changes = employeeService.findChanges(since, limit);
+        if (!changes.isEmpty() || wait.isZero() || wait.isNegative()) {
+            result.setResult(changes);
+            return result;
+        }
+
+        var poll = new Poll(since, employeeService.changesSize(limit), result);
+        polls.add(poll);
+        result.onCompletion(() -> polls.remove(poll));
+
+        // a write that committed after the query but before the poll was held would not wake it
+        if (commits.get() != commitsSeen)
+            check(poll);
+
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void changesRecorded(ChangesRecorded event) {
+        commits.incrementAndGet();
+        if (polls.isEmpty())
+            return;
+
+        // not on the thread of the write, which has its own response to send
+        taskExecutor.execute(this::checkAll);
+        // the change is held back for the visibility delay like any other (a write elsewhere may have taken a lower
+        // sequence and not committed yet), the first check only finds it without one
+        var visibilityDelay = employeeProperties.getChanges().getVisibilityDelay();
+        var scheduler = registrar != null ? registrar.getScheduler() : null;
+        if (visibilityDelay.isPositive() && scheduler != null)
+            scheduler.schedule(this::checkAll, Instant.now().plus(visibilityDelay));
+    }
+
+    // also serves changes the feed was still holding back (see 'EmployeeService.findChanges')
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        this.registrar = registrar;
+        if (isEnabled()) {
+            var interval = employeeProperties.getChanges().getPollInterval();
+            registrar.addFixedDelayTask(new FixedDelayTask(this::checkAll, interval, interval));
+        }
+    }
+
+    // one query from the oldest 'since' of the held polls, each gets its part of it
+    private void checkAll() {
+
+        var waiting = polls.stream().filter(poll -> !poll.result().isSetOrExpired()).toList();
+        if (waiting.isEmpty())
+            return;
+
+        long since = waiting.stream().mapToLong(Poll::since).min().getAsLong();
+        int size = employeeProperties.getChanges().getMaxSize();
+        var changes = employeeService.findChanges(since, size);
+
+        for (var poll : waiting) {
+            var after = changes.stream()
+                    .filter(change -> change.getSequence() > poll.since())
+                    .limit(poll.size())
+                    .toList();
+            if (!after.isEmpty())
+                poll.result().setResult(after);
+            else if (changes.size() == size)
+                check(poll); // the changes read ended before its 'since'
+        }
+    }
+
+    private void check(Poll poll) {
+        if (poll.result().isSetOrExpired())
+            return;
+        var changes = employeeService.findChanges(poll.since(), poll.size());
+        if (!changes.isEmpty())
+            poll.result().setResult(changes);
+    }
+}
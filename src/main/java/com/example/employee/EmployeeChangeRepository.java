@@ -0,0 +1,11 @@
+package com.example.employee;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface EmployeeChangeRepository extends JpaRepository<EmployeeChange, Long>, EmployeeChangeRepositoryCustom {
+
+    List<EmployeeChange> findBySequenceGreaterThanOrderBySequenceAsc(long sequence, Pageable pageable);
+}
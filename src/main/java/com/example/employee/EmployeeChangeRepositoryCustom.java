@@ -0,0 +1,23 @@
+package com.example.employee;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Every write records its changes with one INSERT ... SELECT from the rows it touches, however many there are.
+ * Must be called inside the transaction of the write.
+ */
+public interface EmployeeChangeRepositoryCustom {
+
+    /**
+     * The rows as they are now: call it after an insert or update, before a delete.
+     * Returns the number of changes recorded (0 - none of the employees exists).
+     */
+    int recordChanges(EmployeeChange.Type type, Collection<Long> ids, Instant recordedAt);
+
+    /**
+     * The rows 'EmployeeRepository.adjustAge' is about to update, as they will be after it.
+     * Call it first, with the same arguments.
+     */
+    int recordAgeAdjustment(int delta, String namePattern, Integer minAge, Integer maxAge, Instant recordedAt);
+}
@@ -0,0 +1,48 @@
+package com.example.employee;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+import java.util.Collection;
+
+// plain JPQL through the EntityManager: the '@Query' parser of Spring Data JPA 3.1.0 fails on INSERT statements
+@RequiredArgsConstructor
+class EmployeeChangeRepositoryCustomImpl implements EmployeeChangeRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public int recordChanges(EmployeeChange.Type type, Collection<Long> ids, Instant recordedAt) {
+
+        if (ids.isEmpty())
+            return 0;
+
+        entityManager.flush();
+        return entityManager.createQuery("INSERT INTO EmployeeChange (type, employeeId, name, age, version, recordedAt)"
+                        + " SELECT :type, e.id, e.name, e.age, e.version, :recordedAt FROM Employee e WHERE e.id IN :ids ORDER BY e.id")
+                .setParameter("type", type)
+                .setParameter("ids", ids)
+                .setParameter("recordedAt", recordedAt)
+                .executeUpdate();
+    }
+
+    @Override
+    public int recordAgeAdjustment(int delta, String namePattern, Integer minAge, Integer maxAge, Instant recordedAt) {
+
+        entityManager.flush();
+        return entityManager.createQuery("INSERT INTO EmployeeChange (type, employeeId, name, age, version, recordedAt)"
+                        + " SELECT :type, e.id, e.name, e.age + :delta, e.version + 1, :recordedAt FROM Employee e"
+                        + " WHERE (:namePattern IS NULL OR e.name LIKE :namePattern ESCAPE '!')"
+                        + " AND (:minAge IS NULL OR e.age >= :minAge)"
+                        + " AND (:maxAge IS NULL OR e.age <= :maxAge)"
+                        + " ORDER BY e.id")
+                .setParameter("type", EmployeeChange.Type.UPDATE)
+                .setParameter("delta", delta)
+                .setParameter("namePattern", namePattern)
+                .setParameter("minAge", minAge)
+                .setParameter("maxAge", maxAge)
+                .setParameter("recordedAt", recordedAt)
+                .executeUpdate();
+    }
+}
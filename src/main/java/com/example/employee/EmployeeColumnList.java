@@ -0,0 +1,85 @@
+package com.example.employee;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import static com.example.employee.EmployeeColumns.NO_AGE;
+import static com.example.employee.EmployeeColumns.NO_NAME;
+
+/**
+ * Rows copied out of {@link EmployeeColumns} as they are stored there: primitive arrays and the UTF-8 bytes of the names,
+ * no object per row. An {@link EmployeeDto} is only made for a row that is asked for; JSON (CBOR, Smile) is written
+ * straight from the arrays (see {@link EmployeeJsonModule}).
+ */
+final class EmployeeColumnList extends AbstractList<EmployeeDto> implements RandomAccess {
+
+    private final long[] ids;
+    private final long[] versions;
+    private final int[] ages;
+    private final int[] nameOffsets;
+    private final int[] nameLengths;
+    private final byte[] names;
+
+    EmployeeColumnList(long[] ids, long[] versions, int[] ages, int[] nameOffsets, int[] nameLengths, byte[] names) {
+        this.ids = ids;
+        this.versions = versions;
+        this.ages = ages;
+        this.nameOffsets = nameOffsets;
+        this.nameLengths = nameLengths;
+        this.names = names;
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public EmployeeDto get(int index) {
+        int length = nameLengths[index];
+        return new EmployeeDto(ids[index],
+                length == NO_NAME ? null : new String(names, nameOffsets[index], length, StandardCharsets.UTF_8),
+                ages[index] == NO_AGE ? null : ages[index],
+                versions[index]);
+    }
+
+    long id(int index) {
+        return ids[index];
+    }
+
+    long version(int index) {
+        return versions[index];
+    }
+
+    // The array Jackson writes for a List<EmployeeDto>. To a stream (JSON, CBOR, Smile) the names go as the UTF-8 bytes
+    // they are (escaped as needed); generators writing characters or tokens don't take bytes, they get Strings
+    void writeTo(JsonGenerator generator) throws IOException {
+
+        var bytes = generator.getOutputTarget() instanceof OutputStream;
+        generator.writeStartArray(this, ids.length);
+        for (int row = 0; row < ids.length; row++) {
+            generator.writeStartObject();
+            generator.writeNumberField("id", ids[row]);
+            generator.writeFieldName("name");
+            if (nameLengths[row] == NO_NAME)
+                generator.writeNull();
+            else if (bytes)
+                generator.writeUTF8String(names, nameOffsets[row], nameLengths[row]);
+            else
+                generator.writeString(new String(names, nameOffsets[row], nameLengths[row], StandardCharsets.UTF_8));
+            generator.writeFieldName("age");
+            if (ages[row] == NO_AGE)
+                generator.writeNull();
+            else
+                generator.writeNumber(ages[row]);
+            generator.writeNumberField("version", versions[row]);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+}
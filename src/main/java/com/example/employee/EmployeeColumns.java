@@ -0,0 +1,241 @@
+package com.example.employee;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The employees table as parallel primitive arrays sorted by id, names UTF-8 encoded into one shared byte pool.
+ * A row costs 8 (id) + 8 (version) + 4 (age) + 4 + 4 (name offset and length) bytes plus its name,
+ * against an object header, boxed fields and a String per row for an entity: a million rows with 14-byte names take
+ * about 42 MB here and about 110 MB as a list of Employee (or EmployeeDto) objects. Not thread-safe, {@link EmployeeSnapshot} guards it.
+ */
+class EmployeeColumns {
+
+    static final int NO_AGE = Integer.MIN_VALUE;
+    static final int NO_NAME = -1;
+    // a row 'removeAll' has marked, gone once the others have been moved up over it
+    private static final int REMOVED = -2;
+
+    private long[] ids;
+    private long[] versions;
+    private int[] ages;
+    private int[] nameOffsets;
+    private int[] nameLengths;
+    private int size;
+
+    private byte[] names;
+    private int namesSize;
+    // bytes of names that were overwritten or deleted, reclaimed by 'compactNames'
+    private int namesGarbage;
+
+    EmployeeColumns() {
+        this(1024, 16 * 1024);
+    }
+
+    EmployeeColumns(int rows, int nameBytes) {
+        ids = new long[rows];
+        versions = new long[rows];
+        ages = new int[rows];
+        nameOffsets = new int[rows];
+        nameLengths = new int[rows];
+        names = new byte[nameBytes];
+    }
+
+    int size() {
+        return size;
+    }
+
+    // rows come in id order while the columns are loaded, so this is an append in the usual case
+    void put(EmployeeDto employee) {
+        put(employee.id(), employee.name(), employee.age(), employee.version());
+    }
+
+    // inserts or overwrites the row. A null 'version' means the write didn't say, the row's own is bumped.
+    // A version older than the row's is ignored: the columns were loaded after that write
+    void put(long id, String name, Integer age, Long version) {
+
+        int row = find(id);
+        if (row >= 0 && version != null && version < versions[row])
+            return;
+
+        if (row < 0) {
+            row = -row - 1;
+            insertRow(row);
+            ids[row] = id;
+            versions[row] = version != null ? version : 0L;
+        } else {
+            versions[row] = version != null ? version : versions[row] + 1;
+            releaseName(row);
+        }
+
+        ages[row] = age != null ? age : NO_AGE;
+        nameLengths[row] = NO_NAME; // the old name is garbage now, compaction mustn't keep it
+        storeName(row, name);
+    }
+
+    void putAll(EmployeeColumns other) {
+        for (int row = 0; row < other.size; row++) {
+            put(other.row(row));
+        }
+    }
+
+    void remove(long id) {
+        removeAll(List.of(id));
+    }
+
+    // one pass over the columns however many ids there are: their rows are marked, then the rest moved up over them
+    void removeAll(Collection<Long> removedIds) {
+
+        int removed = 0;
+        for (var id : removedIds) {
+            int row = find(id);
+            if (row < 0 || nameLengths[row] == REMOVED)
+                continue;
+            releaseName(row);
+            nameLengths[row] = REMOVED;
+            removed++;
+        }
+        if (removed == 0)
+            return;
+
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            if (nameLengths[row] == REMOVED)
+                continue;
+            if (kept != row) {
+                ids[kept] = ids[row];
+                versions[kept] = versions[row];
+                ages[kept] = ages[row];
+                nameOffsets[kept] = nameOffsets[row];
+                nameLengths[kept] = nameLengths[row];
+            }
+            kept++;
+        }
+        size = kept;
+    }
+
+    // up to 'limit' rows with an id greater than 'after', in id order: copied out as columns, no object per row
+    EmployeeColumnList page(long after, int limit) {
+
+        int from = find(after);
+        from = from >= 0 ? from + 1 : -from - 1;
+        int rows = (int) Math.max(Math.min(size, (long) from + limit) - from, 0);
+
+        int nameBytes = 0;
+        for (int row = from; row < from + rows; row++) {
+            nameBytes += Math.max(nameLengths[row], 0);
+        }
+
+        var pageNameOffsets = new int[rows];
+        var pageNames = new byte[nameBytes];
+        int offset = 0;
+        for (int i = 0; i < rows; i++) {
+            int length = nameLengths[from + i];
+            if (length == NO_NAME)
+                continue;
+            System.arraycopy(names, nameOffsets[from + i], pageNames, offset, length);
+            pageNameOffsets[i] = offset;
+            offset += length;
+        }
+
+        return new EmployeeColumnList(Arrays.copyOfRange(ids, from, from + rows),
+                Arrays.copyOfRange(versions, from, from + rows),
+                Arrays.copyOfRange(ages, from, from + rows),
+                pageNameOffsets,
+                Arrays.copyOfRange(nameLengths, from, from + rows),
+                pageNames);
+    }
+
+    boolean hasAfter(long id) {
+        return size > 0 && ids[size - 1] > id;
+    }
+
+    // what the arrays take on the heap, allocated but unused capacity included
+    long heapBytes() {
+        return 16L * ids.length + 12L * ages.length + names.length;
+    }
+
+    private EmployeeDto row(int row) {
+        int length = nameLengths[row];
+        return new EmployeeDto(ids[row],
+                length == NO_NAME ? null : new String(names, nameOffsets[row], length, StandardCharsets.UTF_8),
+                ages[row] == NO_AGE ? null : ages[row],
+                versions[row]);
+    }
+
+    private int find(long id) {
+        // appends are the common case, no need to search for them
+        if (size == 0 || ids[size - 1] < id)
+            return -size - 1;
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    private void insertRow(int row) {
+
+        if (size == ids.length) {
+            int capacity = ids.length + (ids.length >> 1) + 1;
+            ids = Arrays.copyOf(ids, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+            nameLengths = Arrays.copyOf(nameLengths, capacity);
+        }
+
+        int tail = size - row;
+        System.arraycopy(ids, row, ids, row + 1, tail);
+        System.arraycopy(versions, row, versions, row + 1, tail);
+        System.arraycopy(ages, row, ages, row + 1, tail);
+        System.arraycopy(nameOffsets, row, nameOffsets, row + 1, tail);
+        System.arraycopy(nameLengths, row, nameLengths, row + 1, tail);
+        size++;
+    }
+
+    private void storeName(int row, String name) {
+
+        if (name == null) {
+            nameOffsets[row] = 0;
+            nameLengths[row] = NO_NAME;
+            return;
+        }
+
+        var bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (namesSize + bytes.length > names.length) {
+            // overwritten and deleted names leave holes, squeeze them out before growing the pool
+            if (namesGarbage > names.length / 2)
+                compactNames();
+            if (namesSize + bytes.length > names.length)
+                names = Arrays.copyOf(names, Math.max(names.length + (names.length >> 1), namesSize + bytes.length));
+        }
+
+        System.arraycopy(bytes, 0, names, namesSize, bytes.length);
+        nameOffsets[row] = namesSize;
+        nameLengths[row] = bytes.length;
+        namesSize += bytes.length;
+    }
+
+    private void releaseName(int row) {
+        if (nameLengths[row] != NO_NAME)
+            namesGarbage += nameLengths[row];
+    }
+
+    // rewrites the pool in row order, without the released names
+    private void compactNames() {
+
+        var compacted = new byte[names.length];
+        int compactedSize = 0;
+        for (int row = 0; row < size; row++) {
+            int length = nameLengths[row];
+            if (length == NO_NAME)
+                continue;
+            System.arraycopy(names, nameOffsets[row], compacted, compactedSize, length);
+            nameOffsets[row] = compactedSize;
+            compactedSize += length;
+        }
+
+        names = compacted;
+        namesSize = compactedSize;
+        namesGarbage = 0;
+    }
+}
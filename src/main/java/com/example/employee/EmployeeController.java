@@ -1,9 +1,11 @@
 package com.example.employee;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 @Controller
 @RequestMapping("/employees")
@@ -13,15 +15,19 @@ public class EmployeeController {
     private final EmployeeService employeeService;
 
     @GetMapping
-    public String findAll(Model model) {
-        model.addAttribute("employees", employeeService.findAll());
+    public String findAll(@RequestParam(required = false) Long after,
+                          @RequestParam(required = false) Integer limit,
+                          Model model) {
+        // read while the template iterates it, rows are sent as they are rendered
+        model.addAttribute("employees", employeeService.findRows(after, limit));
+        model.addAttribute("limit", limit);
         model.addAttribute("newEmployee", new Employee());
         return "employees/employees";
     }
 
     @GetMapping("/{id}")
     public String findById(@PathVariable long id, Model model) {
-        model.addAttribute("employee", employeeService.findById(id));
+        model.addAttribute("employee", findEmployee(id));
         return "employees/employee";
     }
 
@@ -33,7 +39,9 @@ public class EmployeeController {
 
     @GetMapping("/{id}/edit")
     public String editForm(@PathVariable long id, Model model) {
-        model.addAttribute("employee", employeeService.findById(id));
+        // the form is bound to an entity, the same type 'update' receives
+        var employee = findEmployee(id);
+        model.addAttribute("employee", new Employee(employee.id(), employee.name(), employee.age()));
         return "employees/edit";
     }
 
@@ -48,4 +56,11 @@ public class EmployeeController {
         employeeService.deleteById(id);
         return "redirect:/employees";
     }
+
+    private EmployeeDto findEmployee(long id) {
+        var employee = employeeService.findById(id);
+        if (employee == null)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        return employee;
+    }
 }
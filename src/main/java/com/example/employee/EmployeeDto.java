@@ -0,0 +1,12 @@
+package com.example.employee;
+
+/**
+ * Read-only view of an employee. Read paths select straight into it (a JPQL constructor expression),
+ * so Hibernate neither manages the rows nor keeps dirty-checking snapshots of them.
+ */
+public record EmployeeDto(Long id, String name, Integer age, Long version) {
+
+    public static EmployeeDto of(Employee employee) {
+        return new EmployeeDto(employee.getId(), employee.getName(), employee.getAge(), employee.getVersion());
+    }
+}
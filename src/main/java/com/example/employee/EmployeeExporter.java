@@ -0,0 +1,78 @@
+package com.example.employee;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the whole employees table to a stream row by row, as rows come from the database cursor.
+ */
+@Component
+@RequiredArgsConstructor
+public class EmployeeExporter {
+
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String CSV = "text/csv";
+
+    private final EmployeeService employeeService;
+    private final ObjectMapper objectMapper;
+
+    public void exportNdjson(OutputStream out) throws IOException {
+
+        var writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (var generator = objectMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            employeeService.export(employee -> {
+                try {
+                    writer.writeValue(generator, employee);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public void exportCsv(OutputStream out) throws IOException {
+
+        var writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,name,age\n");
+
+        try {
+            employeeService.export(employee -> {
+                try {
+                    writer.write(String.valueOf(employee.id()));
+                    writer.write(',');
+                    writer.write(csvField(employee.name()));
+                    writer.write(',');
+                    if (employee.age() != null)
+                        writer.write(String.valueOf(employee.age()));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+    }
+
+    // RFC 4180: quote the field if it contains a separator, a quote or a line break
+    static String csvField(String value) {
+        if (value == null)
+            return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
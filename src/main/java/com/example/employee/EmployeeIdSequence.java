@@ -0,0 +1,42 @@
+package com.example.employee;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Where 'ddl-auto=update' creates the 'employees_seq' table (MySQL has no sequences), Hibernate starts it at 1,
+ * below the ids the table already has from AUTO_INCREMENT, and the first inserts would fail on duplicate keys.
+ * It is moved past them at startup, before anything is inserted. The migrations seed it the same way (V1).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.jpa.hibernate.ddl-auto", havingValue = "update")
+@RequiredArgsConstructor
+class EmployeeIdSequence implements SmartInitializingSingleton {
+
+    // the pooled optimizer takes the value it reads as the last id of its block: the next block must start past MAX(id).
+    // Only ever raised, an instance still using the block it has is not affected
+    private static final String RAISE = """
+            UPDATE employees_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + ? FROM employees)
+            WHERE next_val < (SELECT COALESCE(MAX(id), 0) + ? FROM employees)""";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+
+        var dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        if (dialect.getSequenceSupport().supportsSequences())
+            return; // a real sequence, not the table
+
+        if (jdbcTemplate.update(RAISE, Employee.ID_BLOCK + 1, Employee.ID_BLOCK + 1) > 0)
+            log.info("Moved 'employees_seq' past the existing employee ids");
+    }
+}
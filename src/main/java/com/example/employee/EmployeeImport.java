@@ -0,0 +1,62 @@
+package com.example.employee;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A CSV import run by {@link EmployeeImporter}, and how far it got. The counters move with every chunk,
+ * in the transaction that inserts it, so a job picked up again after a crash goes on right after the last chunk committed.
+ */
+@Entity
+@Table(name = "employee_imports")
+@NoArgsConstructor
+@Getter @Setter
+public class EmployeeImport {
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 7)
+    private Status status;
+
+    // the upload, spooled to disk until the job is done
+    @JsonIgnore
+    @Column(nullable = false, length = 1024)
+    private String file;
+
+    // records read so far, imported or rejected
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+
+    // the first rejected record, or why the job failed
+    @Column(length = 1024)
+    private String error;
+
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant updatedAt;
+
+    EmployeeImport(String file) {
+        this.status = Status.QUEUED;
+        this.file = file;
+        this.createdAt = Instant.now();
+    }
+
+    // rows imported per second since the job started, any time it spent waiting to be resumed included
+    public Double getRowsPerSecond() {
+        if (startedAt == null || updatedAt == null || !updatedAt.isAfter(startedAt))
+            return null;
+        return rowsImported * 1000.0 / Duration.between(startedAt, updatedAt).toMillis();
+    }
+}
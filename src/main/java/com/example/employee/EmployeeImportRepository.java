@@ -0,0 +1,29 @@
+package com.example.employee;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmployeeImportRepository extends JpaRepository<EmployeeImport, Long> {
+
+    List<EmployeeImport> findByStatusInOrderById(Collection<EmployeeImport.Status> statuses);
+
+    // called in the transaction that inserts the chunk; only the first rejected record is kept in 'error'
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE EmployeeImport i SET i.rowsRead = i.rowsRead + :read, i.rowsImported = i.rowsImported + :imported,"
+            + " i.rowsRejected = i.rowsRejected + :rejected, i.error = COALESCE(i.error, :error), i.updatedAt = :now"
+            + " WHERE i.id = :id")
+    int addProgress(Long id, long read, long imported, long rejected, String error, Instant now);
+
+    // called on its own, so a transaction of its own (the repository's default one is read-only)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE EmployeeImport i SET i.status = :status, i.error = COALESCE(:error, i.error), i.updatedAt = :now"
+            + " WHERE i.id = :id")
+    int updateStatus(Long id, EmployeeImport.Status status, String error, Instant now);
+}
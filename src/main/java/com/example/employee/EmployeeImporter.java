@@ -0,0 +1,307 @@
+package com.example.employee;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV imports ('id,name,age' with a header, as the export writes it; 'id' is ignored), run one at a time by a background thread.
+ * The upload is spooled to disk and then read as a stream, 'employees.imports.chunk-size' records per transaction:
+ * the chunk's valid rows are inserted through {@link EmployeeService#createAll} and the job's counters move in the same commit.
+ * Invalid records are counted and skipped, a file that isn't CSV fails the job. A database error doesn't: the job stays
+ * RUNNING and is tried again after 'employees.imports.retry-delay'. Jobs left unfinished by a shutdown or a crash
+ * are picked up again on startup, right after their last committed chunk.
+ */
+@Slf4j
+@Component
+public class EmployeeImporter implements SmartLifecycle {
+
+    private static final long POLL_MILLIS = 100;
+    private static final int MAX_NAME_LENGTH = 128;
+    private static final int MAX_AGE = 150;
+
+    private final EmployeeService employeeService;
+    private final EmployeeImportRepository employeeImportRepository;
+    private final EmployeeProperties employeeProperties;
+    private final TransactionTemplate transaction;
+    private final Counter rowsImported;
+    private final Counter rowsRejected;
+
+    private final BlockingQueue<Long> jobs = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread importer;
+
+    public EmployeeImporter(EmployeeService employeeService, EmployeeImportRepository employeeImportRepository,
+                            EmployeeProperties employeeProperties, PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+
+        this.employeeService = employeeService;
+        this.employeeImportRepository = employeeImportRepository;
+        this.employeeProperties = employeeProperties;
+        this.transaction = new TransactionTemplate(transactionManager);
+
+        this.rowsImported = Counter.builder("employees.imports.rows").tag("outcome", "imported").register(meterRegistry);
+        this.rowsRejected = Counter.builder("employees.imports.rows").tag("outcome", "rejected").register(meterRegistry);
+    }
+
+    // spools 'csv' to disk and queues the import, which runs in the background
+    public EmployeeImport submit(InputStream csv) throws IOException {
+
+        var directory = employeeProperties.getImports().getDirectory();
+        Files.createDirectories(directory);
+        var file = Files.createTempFile(directory, "employees-", ".csv");
+        try {
+            Files.copy(csv, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        var job = employeeImportRepository.save(new EmployeeImport(file.toString()));
+        jobs.add(job.getId());
+        return job;
+    }
+
+    // null - no such import
+    public EmployeeImport status(Long id) {
+        return employeeImportRepository.findById(id).orElse(null);
+    }
+
+    @Override
+    public void start() {
+
+        // the files are local, so what another instance left unfinished is left alone
+        for (var job : employeeImportRepository.findByStatusInOrderById(
+                EnumSet.of(EmployeeImport.Status.QUEUED, EmployeeImport.Status.RUNNING))) {
+            if (Files.exists(Path.of(job.getFile()))) {
+                log.info("Resuming import {} after {} rows", job.getId(), job.getRowsRead());
+                jobs.add(job.getId());
+            }
+        }
+
+        running = true;
+        // a daemon, so that one stuck in the database can't keep the JVM from exiting
+        importer = Thread.ofPlatform()
+                .name("employee-import")
+                .daemon(true)
+                .start(this::runJobs);
+    }
+
+    // The job in progress stops after its current chunk, and goes on from there on the next start.
+    // A chunk that takes longer than 'employees.imports.stop-timeout' is interrupted: it rolls back and is read again
+    @Override
+    public void stop() {
+        running = false;
+        var timeout = employeeProperties.getImports().getStopTimeout();
+        try {
+            if (!importer.join(timeout)) {
+                log.warn("Import still running after {}, interrupting it", timeout);
+                importer.interrupt();
+                if (!importer.join(timeout))
+                    log.warn("Import did not stop, left running until the JVM exits");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // like the write-behind queue: starts before the web server takes requests, stops after it has stopped
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void runJobs() {
+        while (running) {
+            try {
+                var id = jobs.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (id != null)
+                    runOrRetry(id);
+            } catch (InterruptedException e) {
+                // the loop ends once 'stop()' has cleared 'running'
+            }
+        }
+    }
+
+    void run(long id) {
+
+        var job = employeeImportRepository.findById(id).orElse(null);
+        if (job == null || job.getStatus() == EmployeeImport.Status.DONE || job.getStatus() == EmployeeImport.Status.FAILED)
+            return;
+
+        if (job.getStartedAt() == null)
+            job.setStartedAt(Instant.now());
+        job.setStatus(EmployeeImport.Status.RUNNING);
+        employeeImportRepository.save(job);
+
+        var file = Path.of(job.getFile());
+        try (var csv = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+
+            var columns = columns(csv.next());
+            for (long skipped = 0; skipped < job.getRowsRead(); skipped++) {
+                csv.next();
+            }
+
+            while (running) {
+                var chunk = readChunk(csv, columns);
+                if (chunk.read() == 0) {
+                    finish(job, EmployeeImport.Status.DONE, null);
+                    return;
+                }
+                commit(id, chunk);
+            }
+
+            log.info("Import {} paused, it goes on on the next start", id);
+        } catch (IOException e) {
+            // reading the file interrupted by 'stop()' (ClosedByInterruptException), the job is left as it was
+            if (!running) {
+                log.info("Import {} stopped, it goes on on the next start", id);
+                return;
+            }
+            // the file: unreadable, or not CSV
+            log.warn("Import {} failed", id, e);
+            finish(job, EmployeeImport.Status.FAILED, e.getMessage());
+        }
+    }
+
+    // the job in progress stays RUNNING with its file, it goes on after its last committed chunk
+    private void runOrRetry(long id) {
+        try {
+            run(id);
+        } catch (DataAccessException | TransactionException e) {
+            var delay = employeeProperties.getImports().getRetryDelay();
+            log.warn("Import {} interrupted by a database error, retrying in {}", id, delay, e);
+            jobs.add(id);
+            pause(delay); // every job needs the database
+        } catch (RuntimeException e) {
+            log.error("Import {} could not be run, it is tried again on the next start", id, e);
+        }
+    }
+
+    // 'delay', or less if the importer is stopped meanwhile
+    private void pause(Duration delay) {
+        try {
+            for (long left = delay.toMillis(); running && left > 0; left -= POLL_MILLIS)
+                Thread.sleep(Math.min(POLL_MILLIS, left));
+        } catch (InterruptedException e) {
+            // the loop ends once 'stop()' has cleared 'running'
+        }
+    }
+
+    private void commit(long id, Chunk chunk) {
+
+        transaction.executeWithoutResult(status -> {
+            if (!chunk.employees().isEmpty())
+                employeeService.createAll(chunk.employees().iterator());
+            employeeImportRepository.addProgress(id, chunk.read(), chunk.employees().size(), chunk.rejected(),
+                    chunk.firstError(), Instant.now());
+        });
+
+        rowsImported.increment(chunk.employees().size());
+        rowsRejected.increment(chunk.rejected());
+    }
+
+    private void finish(EmployeeImport job, EmployeeImport.Status status, String error) {
+
+        employeeImportRepository.updateStatus(job.getId(), status, error, Instant.now());
+        try {
+            Files.deleteIfExists(Path.of(job.getFile()));
+        } catch (IOException e) {
+            log.warn("Import file {} could not be deleted", job.getFile(), e);
+        }
+    }
+
+    // where the columns are, by the header; 'name' is required
+    private static Columns columns(List<String> header) throws IOException {
+
+        if (header == null || !header.contains("name"))
+            throw new IOException("The first line must be a header with at least a 'name' column, e.g. 'id,name,age'");
+
+        return new Columns(header.indexOf("name"), header.indexOf("age"), header.size());
+    }
+
+    private Chunk readChunk(CsvReader csv, Columns columns) throws IOException {
+
+        int chunkSize = employeeProperties.getImports().getChunkSize();
+        var employees = new ArrayList<Employee>(chunkSize);
+        int read = 0;
+        int rejected = 0;
+        String firstError = null;
+
+        List<String> record;
+        while (read < chunkSize && (record = csv.next()) != null) {
+            read++;
+            if (record.size() == 1 && record.get(0).isEmpty())
+                continue; // a blank line
+
+            try {
+                employees.add(employee(record, columns));
+            } catch (IllegalArgumentException e) {
+                rejected++;
+                if (firstError == null)
+                    firstError = "Line " + csv.line() + ": " + e.getMessage();
+            }
+        }
+
+        return new Chunk(employees, read, rejected, firstError);
+    }
+
+    private static Employee employee(List<String> record, Columns columns) {
+
+        if (record.size() != columns.count())
+            throw new IllegalArgumentException("expected " + columns.count() + " fields, found " + record.size());
+
+        var name = record.get(columns.name()).trim();
+        if (name.isEmpty())
+            throw new IllegalArgumentException("name is missing");
+        if (name.length() > MAX_NAME_LENGTH)
+            throw new IllegalArgumentException("name is longer than " + MAX_NAME_LENGTH + " characters");
+
+        Integer age = null;
+        var ageField = columns.age() >= 0 ? record.get(columns.age()).trim() : "";
+        if (!ageField.isEmpty()) {
+            try {
+                age = Integer.valueOf(ageField);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("age '" + ageField + "' is not a number");
+            }
+            if (age < 0 || age > MAX_AGE)
+                throw new IllegalArgumentException("age " + age + " is out of range");
+        }
+
+        return new Employee(name, age);
+    }
+
+    // positions in a record, 'age' is -1 when there is no such column
+    private record Columns(int name, int age, int count) {
+    }
+
+    private record Chunk(List<Employee> employees, int read, int rejected, String firstError) {
+    }
+}
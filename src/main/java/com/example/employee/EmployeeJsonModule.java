@@ -0,0 +1,76 @@
+package com.example.employee;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Writes a {@link EmployeeColumnList} (the pages and the full list of the snapshot) from its arrays, without an EmployeeDto
+ * and a String per row. Hooked into the serializer of every collection of EmployeeDto, as the controllers declare
+ * List<EmployeeDto> and Jackson picks the serializer by that type; other lists go to the serializer Jackson built.
+ * A Module bean, so Spring Boot registers it with the ObjectMapper and the builder of the binary formats.
+ */
+@Component
+class EmployeeJsonModule extends SimpleModule {
+
+    EmployeeJsonModule() {
+        super("EmployeeJsonModule");
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public JsonSerializer<?> modifyCollectionSerializer(SerializationConfig config, CollectionType valueType,
+                                                                BeanDescription beanDesc, JsonSerializer<?> serializer) {
+                return valueType.getContentType().hasRawClass(EmployeeDto.class) ? new ColumnsFirst(serializer) : serializer;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static final class ColumnsFirst extends StdSerializer<Collection<?>> implements ContextualSerializer, ResolvableSerializer {
+
+        private final JsonSerializer<Object> serializer;
+
+        ColumnsFirst(JsonSerializer<?> serializer) {
+            super(Collection.class, false);
+            this.serializer = (JsonSerializer<Object>) serializer;
+        }
+
+        @Override
+        public void serialize(Collection<?> value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            if (value instanceof EmployeeColumnList rows)
+                rows.writeTo(generator);
+            else
+                serializer.serialize(value, generator, provider);
+        }
+
+        @Override
+        public boolean isEmpty(SerializerProvider provider, Collection<?> value) {
+            return serializer.isEmpty(provider, value);
+        }
+
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) throws JsonMappingException {
+            var contextual = provider.handlePrimaryContextualization(serializer, property);
+            return contextual == serializer ? this : new ColumnsFirst(contextual);
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            if (serializer instanceof ResolvableSerializer resolvable)
+                resolvable.resolve(provider);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.employee;
+
+import java.util.List;
+
+/**
+ * One page of a keyset ('seek') scan over employees ordered by id.
+ * 'nextCursor' is the value to pass as '?after=' for the next page, or null if this is the last one.
+ */
+public record EmployeePage(List<EmployeeDto> content, Long nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
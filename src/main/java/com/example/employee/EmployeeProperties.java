@@ -0,0 +1,121 @@
+package com.example.employee;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "employees")
+@Getter @Setter
+public class EmployeeProperties {
+
+    private Page page = new Page();
+    private Html html = new Html();
+    private Export export = new Export();
+    private Batch batch = new Batch();
+    private WriteBehind writeBehind = new WriteBehind();
+    private Stats stats = new Stats();
+    private Snapshot snapshot = new Snapshot();
+    private Changes changes = new Changes();
+    private Imports imports = new Imports();
+    private Warmup warmup = new Warmup();
+
+    @Getter @Setter
+    public static class Page {
+        // page size used when the client does not ask for one
+        private int defaultSize = 20;
+        // upper bound for '?limit=', so no request reads the whole table
+        private int maxSize = 100;
+    }
+
+    @Getter @Setter
+    public static class Html {
+        // rows on a page of /employees when '?limit=' is not given, and at most
+        private int defaultSize = 100;
+        private int maxSize = 1000;
+        // rows per query while the page is rendered (capped by 'employees.page.max-size')
+        private int chunkSize = 100;
+    }
+
+    @Getter @Setter
+    public static class Export {
+        // rows per round trip of the export cursor (MySQL needs 'useCursorFetch=true' in the URL to honour it)
+        private int fetchSize = 1000;
+    }
+
+    @Getter @Setter
+    public static class Batch {
+        // rows per JDBC batch in bulk inserts, keep in line with 'hibernate.jdbc.batch_size'
+        private int size = 50;
+    }
+
+    @Getter @Setter
+    public static class WriteBehind {
+        // POST /api/employees queues the employee and answers 202 at once, a background writer inserts in batches
+        private boolean enabled = false;
+        // queued employees at most, POSTs beyond it get 429
+        private int capacity = 10_000;
+        // how long shutdown waits for the queue to drain
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+        // how long a write's status can be polled after it was queued
+        private Duration statusRetention = Duration.ofMinutes(10);
+    }
+
+    @Getter @Setter
+    public static class Stats {
+        // GET /api/employees/stats from an in-memory histogram; the first read after a set-based write rebuilds it
+        private boolean enabled = true;
+        // years per histogram bucket
+        private int bucketWidth = 10;
+        // how often the histogram is rebuilt from the table
+        private Duration reconcileInterval = Duration.ofMinutes(1);
+    }
+
+    @Getter @Setter
+    public static class Snapshot {
+        // the full list, its pages and the export served from an in-memory copy of the table (28 bytes a row plus the name)
+        private boolean enabled = false;
+        // how often the copy is reloaded from the table
+        private Duration refreshInterval = Duration.ofMinutes(10);
+    }
+
+    @Getter @Setter
+    public static class Changes {
+        // every write also appends to 'employee_changes' (one more statement), served by GET /api/employees/changes
+        private boolean enabled = true;
+        // changes per response when the client does not ask for a number, and at most
+        private int defaultSize = 100;
+        private int maxSize = 1000;
+        // upper bound for '?wait=', how long a long-poll is held when there is nothing new
+        private Duration maxWait = Duration.ofSeconds(30);
+        // how often held long-polls look for changes written by other instances
+        private Duration pollInterval = Duration.ofSeconds(1);
+        // how long a change recorded by another instance is held back, time for the writes before it to commit
+        // (writes through this instance are tracked until they commit); a change reaches long-polls that much later
+        private Duration visibilityDelay = Duration.ofSeconds(2);
+    }
+
+    @Getter @Setter
+    public static class Imports {
+        // where uploads are spooled until their import is done, a job can only be resumed by the instance that has its file
+        private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "employee-imports");
+        // records per transaction, a resumed job goes on after the last chunk committed
+        private int chunkSize = 10_000;
+        // how long the importer waits after a database error before it tries the job again
+        private Duration retryDelay = Duration.ofSeconds(10);
+        // how long a shutdown waits for the chunk in progress; then it is interrupted and rolled back,
+        // and the job goes on from the chunk before on the next start
+        private Duration stopTimeout = Duration.ofSeconds(10);
+    }
+
+    @Getter @Setter
+    public static class Warmup {
+        // the hot paths run at startup, before readiness reports UP
+        private boolean enabled = true;
+        // rounds of reads, JSON and page renders, stopped early once 'time-budget' is spent
+        private int iterations = 200;
+        private Duration timeBudget = Duration.ofSeconds(30);
+    }
+}
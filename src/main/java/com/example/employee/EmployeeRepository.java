@@ -1,6 +1,57 @@
 package com.example.employee;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
-public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, EmployeeRepositoryCustom {
+
+    List<EmployeeDto> findAllProjectedBy();
+
+    Optional<EmployeeDto> findProjectedById(Long id);
+
+    // keyset pagination: seeks on the primary key instead of using OFFSET
+    Slice<EmployeeDto> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // just the version column, for conditional GETs; null - no such employee
+    @Query("SELECT e.version FROM Employee e WHERE e.id = :id")
+    Long findVersionById(Long id);
+
+    @Query("SELECT new com.example.employee.AgeCount(e.age, COUNT(e)) FROM Employee e GROUP BY e.age")
+    List<AgeCount> countByAge();
+
+    // one UPDATE statement, no SELECT beforehand; returns the number of rows updated
+    // (0 - no such employee, or its version is no longer 'version' when that is given)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Employee e SET e.name = :name, e.age = :age, e.version = e.version + 1"
+            + " WHERE e.id = :id AND (:version IS NULL OR e.version = :version)")
+    int updateById(Long id, String name, Integer age, Long version);
+
+    // unlike 'deleteById' these don't load the entities first, they run a single DELETE and return the rows deleted
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Employee e WHERE e.id = :id")
+    int deleteEmployeeById(Long id);
+
+    // only while the row is at 'version'
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Employee e WHERE e.id = :id AND e.version = :version")
+    int deleteEmployeeByIdAndVersion(Long id, Long version);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Employee e WHERE e.id IN :ids")
+    int deleteEmployeesByIdIn(Collection<Long> ids);
+
+    // set-based age adjustment, every filter is optional ('namePattern' is a LIKE pattern escaped with '!')
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Employee e SET e.age = e.age + :delta, e.version = e.version + 1"
+            + " WHERE (:namePattern IS NULL OR e.name LIKE :namePattern ESCAPE '!')"
+            + " AND (:minAge IS NULL OR e.age >= :minAge)"
+            + " AND (:maxAge IS NULL OR e.age <= :maxAge)")
+    int adjustAge(int delta, String namePattern, Integer minAge, Integer maxAge);
 }
@@ -0,0 +1,32 @@
+package com.example.employee;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface EmployeeRepositoryCustom {
+
+    /**
+     * Walks the whole table in id order through a forward-only cursor.
+     * Rows are read as unmanaged DTOs, nothing piles up in the persistence context, so memory stays flat regardless of table size.
+     * Must be called inside a transaction.
+     */
+    void forEachEmployee(int fetchSize, Consumer<EmployeeDto> consumer);
+
+    /**
+     * Keyset-paged search, every filter is optional ('namePattern' is a LIKE pattern escaped with '!').
+     * Only the filters given go into the WHERE clause, so that MySQL can range-scan the 'name' or 'age' index for them;
+     * an '(:filter IS NULL OR ...)' condition would keep it from using either.
+     */
+    Slice<EmployeeDto> search(long after, String namePattern, Integer minAge, Integer maxAge, Pageable pageable);
+
+    /**
+     * Persists the employees in JDBC batches of 'batchSize', flushing and detaching each batch
+     * so only one batch is held in the persistence context at a time. 'flushed' gets each batch once it is written.
+     * Must be called inside a transaction.
+     */
+    int persistInBatches(Iterator<Employee> employees, int batchSize, Consumer<List<Employee>> flushed);
+}
@@ -0,0 +1,96 @@
+package com.example.employee;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Predicate;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public void forEachEmployee(int fetchSize, Consumer<EmployeeDto> consumer) {
+
+        var query = entityManager.createQuery(
+                        "SELECT new com.example.employee.EmployeeDto(e.id, e.name, e.age, e.version) FROM Employee e ORDER BY e.id",
+                        EmployeeDto.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+
+        try (var employees = query.getResultStream()) {
+            employees.forEach(consumer);
+        }
+    }
+
+    @Override
+    public Slice<EmployeeDto> search(long after, String namePattern, Integer minAge, Integer maxAge, Pageable pageable) {
+
+        var builder = entityManager.getCriteriaBuilder();
+        var query = builder.createQuery(EmployeeDto.class);
+        var employee = query.from(Employee.class);
+
+        var predicates = new ArrayList<Predicate>();
+        predicates.add(builder.greaterThan(employee.<Long>get("id"), after));
+        if (namePattern != null)
+            predicates.add(builder.like(employee.<String>get("name"), namePattern, '!'));
+        if (minAge != null)
+            predicates.add(builder.greaterThanOrEqualTo(employee.<Integer>get("age"), minAge));
+        if (maxAge != null)
+            predicates.add(builder.lessThanOrEqualTo(employee.<Integer>get("age"), maxAge));
+
+        query.select(builder.construct(EmployeeDto.class,
+                        employee.get("id"), employee.get("name"), employee.get("age"), employee.get("version")))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(builder.asc(employee.get("id")));
+
+        // a row more than the page, to know whether there is a next one
+        int size = pageable.getPageSize();
+        var content = entityManager.createQuery(query)
+                .setMaxResults(size + 1)
+                .getResultList();
+
+        boolean hasNext = content.size() > size;
+        return new SliceImpl<>(hasNext ? content.subList(0, size) : content, pageable, hasNext);
+    }
+
+    @Override
+    public int persistInBatches(Iterator<Employee> employees, int batchSize, Consumer<List<Employee>> flushed) {
+
+        int count = 0;
+        var batch = new ArrayList<Employee>(batchSize);
+
+        while (employees.hasNext()) {
+
+            var employee = employees.next();
+            employee.setId(null);
+            employee.setVersion(null);
+            entityManager.persist(employee);
+            batch.add(employee);
+            count++;
+
+            if (batch.size() == batchSize)
+                flushAndDetach(batch, flushed);
+        }
+
+        flushAndDetach(batch, flushed);
+
+        return count;
+    }
+
+    private void flushAndDetach(List<Employee> batch, Consumer<List<Employee>> flushed) {
+        entityManager.flush();
+        if (!batch.isEmpty())
+            flushed.accept(batch);
+        batch.forEach(entityManager::detach);
+        batch.clear();
+    }
+}
@@ -1,10 +1,27 @@
 package com.example.employee;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -13,36 +30,213 @@ import java.util.List;
 public class EmployeeRestController {
 
     private final EmployeeService employeeService;
+    private final EmployeeExporter employeeExporter;
+    private final EmployeeStats employeeStats;
+    private final EmployeeChangeFeed employeeChangeFeed;
+    private final EmployeeImporter employeeImporter;
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2CborHttpMessageConverter cborConverter;
+    private final MappingJackson2SmileHttpMessageConverter smileConverter;
+    private final ObjectProvider<EmployeeWriteBehind> employeeWriteBehind;
 
     @GetMapping
-    public List<Employee> findAll() {
-        return employeeService.findAll();
+    public ResponseEntity<List<EmployeeDto>> findAll(@RequestParam(required = false) Long after,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     HttpServletRequest request) {
+        return pageResponse(employeeService.findPage(after, limit), request);
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<List<EmployeeDto>> search(@RequestParam(required = false) String namePrefix,
+                                                    @RequestParam(required = false) Integer minAge,
+                                                    @RequestParam(required = false) Integer maxAge,
+                                                    @RequestParam(required = false) Long after,
+                                                    @RequestParam(required = false) Integer limit,
+                                                    HttpServletRequest request) {
+        return pageResponse(employeeService.search(namePrefix, minAge, maxAge, after, limit), request);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<EmployeeStatistics> statistics() {
+
+        if (!employeeStats.isEnabled())
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+
+        return new ResponseEntity<>(employeeStats.statistics(), HttpStatus.OK);
+    }
+
+    // GET /api/employees/changes?since=<sequence>&limit=N&wait=<seconds> - inserts, updates and deletes after 'since', oldest first.
+    // Pass the last 'sequence' received as the next 'since': a change is only served once every change before it has committed,
+    // so none can turn up behind it later. With 'wait' and nothing new, the response is held until something is written
+    // or 'wait' is over (an empty list then)
+    @GetMapping("/changes")
+    public DeferredResult<List<EmployeeChange>> changes(@RequestParam(defaultValue = "0") long since,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        @RequestParam(defaultValue = "0") int wait) {
+
+        if (!employeeChangeFeed.isEnabled())
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+
+        return employeeChangeFeed.poll(since, limit, Duration.ofSeconds(wait));
+    }
+
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+
+        switch (format) {
+            case "ndjson" -> {
+                response.setContentType(EmployeeExporter.NDJSON);
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                employeeExporter.exportNdjson(response.getOutputStream());
+            }
+            case "csv" -> {
+                response.setContentType(EmployeeExporter.CSV);
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"employees.csv\"");
+                employeeExporter.exportCsv(response.getOutputStream());
+            }
+            default -> response.sendError(HttpStatus.BAD_REQUEST.value(), "Unknown export format: " + format);
+        }
+    }
+
+    // 'ETag: "<version>"'. A conditional GET is answered from the cached employee, or else from the version column alone:
+    // the row is read only when it has changed
     @GetMapping("/{id}")
-    public ResponseEntity<Employee> findById(@PathVariable long id) {
+    public ResponseEntity<EmployeeDto> findById(@PathVariable long id,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        var headers = new HttpHeaders();
+
+        if (ifNoneMatch != null) {
+            var cached = employeeService.findCachedById(id);
+            var version = cached != null ? cached.version() : employeeService.findVersionById(id);
+            if (version == null)
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+
+            headers.setETag(etag(version));
+            if (etagMatches(ifNoneMatch, headers.getETag()))
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            if (cached != null)
+                return new ResponseEntity<>(cached, headers, HttpStatus.OK);
+        }
 
         var employee = employeeService.findById(id);
         if (employee == null)
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 
-        return new ResponseEntity<>(employee, HttpStatus.OK);
+        headers.setETag(etag(employee.version()));
+        return new ResponseEntity<>(employee, headers, HttpStatus.OK);
     }
 
+    // With 'employees.write-behind.enabled' the employee is only queued: the body is an EmployeeWrite to poll at the 'Location',
+    // and 429 means the queue is full
     @PostMapping
+    public ResponseEntity<?> create(@RequestBody Employee employee) {
+
+        var writeBehind = employeeWriteBehind.getIfAvailable();
+        if (writeBehind == null)
+            return new ResponseEntity<>(employeeService.create(employee), HttpStatus.ACCEPTED);
+
+        var headers = new HttpHeaders();
+        var write = writeBehind.submit(employee);
+        if (write == null) {
+            headers.set(HttpHeaders.RETRY_AFTER, "1");
+            return new ResponseEntity<>(headers, HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        headers.setLocation(ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/pending/{trackingId}")
+                .buildAndExpand(write.trackingId())
+                .toUri());
+        return new ResponseEntity<>(write, headers, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/pending/{trackingId}")
+    public ResponseEntity<EmployeeWrite> findWrite(@PathVariable String trackingId) {
+
+        var writeBehind = employeeWriteBehind.getIfAvailable();
+        var write = writeBehind != null ? writeBehind.status(trackingId) : null;
+        if (write == null)
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+
+        return new ResponseEntity<>(write, HttpStatus.OK);
+    }
+
+    // accepts either an array or a sequence of objects (newline-delimited in JSON), in JSON, CBOR or Smile,
+    // parsed element by element from the request stream
+    @PostMapping(value = "/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, EmployeeExporter.NDJSON,
+            MediaType.APPLICATION_CBOR_VALUE, "application/x-jackson-smile" })
     @ResponseStatus(HttpStatus.ACCEPTED)
-    public Employee create(@RequestBody Employee employee) {
-        return employeeService.create(employee);
+    public BulkResult createAll(HttpServletRequest request) throws IOException {
+
+        var contentType = MediaType.parseMediaType(request.getContentType());
+        var mapper = cborConverter.canRead(Employee.class, contentType) ? cborConverter.getObjectMapper()
+                : smileConverter.canRead(Employee.class, contentType) ? smileConverter.getObjectMapper()
+                : objectMapper;
+
+        try (MappingIterator<Employee> employees = mapper.readerFor(Employee.class)
+                .readValues(request.getInputStream())) {
+            return new BulkResult(employeeService.createAll(employees));
+        } catch (RuntimeJsonMappingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    // POST /api/employees/imports with a CSV body ('id,name,age' as the export writes it): 202 at once, the import runs
+    // in the background. Poll the 'Location' for its progress
+    @PostMapping(value = "/imports", consumes = EmployeeExporter.CSV)
+    public ResponseEntity<EmployeeImport> importCsv(HttpServletRequest request) throws IOException {
+
+        var job = employeeImporter.submit(request.getInputStream());
+
+        var headers = new HttpHeaders();
+        headers.setLocation(ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/{id}")
+                .buildAndExpand(job.getId())
+                .toUri());
+        return new ResponseEntity<>(job, headers, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/imports/{id}")
+    public ResponseEntity<EmployeeImport> findImport(@PathVariable long id) {
+
+        var job = employeeImporter.status(id);
+        if (job == null)
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+
+        return new ResponseEntity<>(job, HttpStatus.OK);
     }
 
+    // 'If-Match: "<version>"' (or the version in the body) only updates that version of the employee, 412 if it has changed since.
+    // 'If-Match: *', or neither, updates whatever is there
     @PutMapping("/{id}")
-    public ResponseEntity<Employee> update(@PathVariable long id, @RequestBody Employee employee) {
+    public ResponseEntity<Employee> update(@PathVariable long id, @RequestBody Employee employee,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+
+        if (ifMatch != null && ifMatch.trim().equals("*")) {
+            employee.setVersion(null);
+        } else if (ifMatch != null) {
+            var version = version(ifMatch);
+            if (version == null)
+                return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+            employee.setVersion(version);
+        }
 
-        var employeePersisted = employeeService.update(id, employee);
+        Employee employeePersisted;
+        try {
+            employeePersisted = employeeService.update(id, employee);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
         if (employeePersisted == null)
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 
-        return new ResponseEntity<>(employeePersisted, HttpStatus.ACCEPTED);
+        var headers = new HttpHeaders();
+        if (employeePersisted.getVersion() != null)
+            headers.setETag(etag(employeePersisted.getVersion()));
+
+        return new ResponseEntity<>(employeePersisted, headers, HttpStatus.ACCEPTED);
     }
 
     @DeleteMapping("/{id}")
@@ -50,4 +244,81 @@ public class EmployeeRestController {
     public void deleteById(@PathVariable long id) {
         employeeService.deleteById(id);
     }
+
+    // DELETE /api/employees?ids=1,2,3
+    @DeleteMapping(params = "ids")
+    public BulkResult deleteAllById(@RequestParam List<Long> ids) {
+        return new BulkResult(employeeService.deleteAllById(ids));
+    }
+
+    // PATCH /api/employees/age?delta=1&namePrefix=...&minAge=...&maxAge=... - filters are optional
+    @PatchMapping("/age")
+    public BulkResult adjustAge(@RequestParam int delta,
+                                @RequestParam(required = false) String namePrefix,
+                                @RequestParam(required = false) Integer minAge,
+                                @RequestParam(required = false) Integer maxAge) {
+        return new BulkResult(employeeService.adjustAge(delta, namePrefix, minAge, maxAge));
+    }
+
+    // the page as the body, and a 'Link: <...?after=...>; rel="next"' header (same query, next cursor) unless it is the last page.
+    // With its ETag, Spring answers a matching 'If-None-Match' with 304 and doesn't serialize the page
+    private static ResponseEntity<List<EmployeeDto>> pageResponse(EmployeePage page, HttpServletRequest request) {
+
+        var headers = new HttpHeaders();
+        headers.setETag(etag(page));
+        if (page.hasNext()) {
+            var nextUri = ServletUriComponentsBuilder.fromCurrentRequestUri();
+            request.getParameterMap().forEach((name, values) -> {
+                if (!name.equals("after"))
+                    nextUri.queryParam(name, (Object[]) values);
+            });
+            nextUri.queryParam("after", page.nextCursor());
+            headers.add(HttpHeaders.LINK, "<" + nextUri.toUriString() + ">; rel=\"next\"");
+        }
+
+        return new ResponseEntity<>(page.content(), headers, HttpStatus.OK);
+    }
+
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // changes whenever a row on the page is added, removed or written (every write bumps the row's version).
+    // Weak, as it stands for the rows and not for the bytes sent: the same page in JSON, CBOR or gzipped
+    // (Tomcat doesn't compress a response with a strong ETag)
+    private static String etag(EmployeePage page) {
+        long hash = page.nextCursor() != null ? page.nextCursor() : 0;
+        if (page.content() instanceof EmployeeColumnList rows) {
+            // a page from the snapshot, without making an EmployeeDto per row
+            for (int i = 0; i < rows.size(); i++)
+                hash = 31 * (31 * hash + rows.id(i)) + rows.version(i);
+        } else {
+            for (var employee : page.content()) {
+                hash = 31 * (31 * hash + employee.id()) + employee.version();
+            }
+        }
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    // 'If-None-Match' is a weak comparison: '*', or any tag in the list with the 'W/' prefix ignored
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        for (var tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag))
+                return true;
+        }
+        return false;
+    }
+
+    // the version in a single strong 'If-Match' tag, null if there isn't one (a weak tag never matches)
+    private static Long version(String ifMatch) {
+        var tag = ifMatch.trim();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\""))
+            return null;
+        try {
+            return Long.valueOf(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
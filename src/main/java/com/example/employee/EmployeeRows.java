@@ -0,0 +1,60 @@
+package com.example.employee;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+/**
+ * A page of employees ordered by id, read as it is iterated, 'chunkSize' rows per keyset query.
+ * A template iterating it writes out one chunk's rows (and the container sends them on once its buffer fills)
+ * before the next chunk is read, so neither the first byte nor the memory held waits for the whole page.
+ * 'getNextCursor()' is only known once it has been iterated to the end.
+ */
+public class EmployeeRows implements Iterator<EmployeeDto> {
+
+    // (after, size) -> the next chunk
+    private final BiFunction<Long, Integer, EmployeePage> reader;
+    private final int chunkSize;
+
+    private Iterator<EmployeeDto> chunk = Collections.emptyIterator();
+    private long after;
+    private int remaining;
+    // whether the table may have rows after 'after'
+    private boolean more = true;
+
+    public EmployeeRows(long after, int size, int chunkSize, BiFunction<Long, Integer, EmployeePage> reader) {
+        this.after = after;
+        this.remaining = size;
+        this.chunkSize = chunkSize;
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (chunk.hasNext())
+            return true;
+        if (!more || remaining == 0)
+            return false;
+
+        var page = reader.apply(after, Math.min(chunkSize, remaining));
+        chunk = page.content().iterator();
+        more = page.hasNext();
+        return chunk.hasNext();
+    }
+
+    @Override
+    public EmployeeDto next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        var employee = chunk.next();
+        after = employee.id();
+        remaining--;
+        return employee;
+    }
+
+    // the '?after=' of the next page, null if this was the last one (or hasn't been iterated to the end yet)
+    public Long getNextCursor() {
+        return remaining == 0 && more ? after : null;
+    }
+}
@@ -1,39 +1,355 @@
 package com.example.employee;
 
+import com.example.config.ReadWriteRoutingDataSource;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class EmployeeService {
 
+    public static final String EMPLOYEES_CACHE = "employees";
+
     private final EmployeeRepository employeeRepository;
+    private final EmployeeChangeRepository employeeChangeRepository;
+    private final EmployeeProperties employeeProperties;
+    private final PlatformTransactionManager transactionManager;
+    private final EmployeeStats employeeStats;
+    private final EmployeeSnapshot employeeSnapshot;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+
+    // concurrent identical reads share one query instead of each running their own
+    private final SingleFlight<Object, Object> readsInFlight = new SingleFlight<>();
+
+    // the writing transactions in flight that have recorded changes, see 'changesHorizon'
+    private final Set<RecordingTransaction> recordingTransactions = ConcurrentHashMap.newKeySet();
+
+    // a class, not a record: two transactions may start recording at the same instant
+    private static final class RecordingTransaction {
+
+        private final Instant since = Instant.now();
+    }
+
+    public List<EmployeeDto> findAll() {
+        if (employeeSnapshot.canServe())
+            return employeeSnapshot.findAll();
+        return coalesce(List.of("all"), employeeRepository::findAllProjectedBy);
+    }
+
+    public EmployeePage findPage(Long after, Integer limit) {
+
+        long from = after == null ? 0L : after;
+        int size = pageSize(limit);
 
-    public List<Employee> findAll() {
-        return employeeRepository.findAll();
+        if (employeeSnapshot.canServe())
+            return employeeSnapshot.findPage(from, size);
+
+        return coalesce(List.of("page", from, size), () -> toPage(
+                employeeRepository.findByIdGreaterThanOrderByIdAsc(from, PageRequest.ofSize(size))));
+    }
+
+    // a page for the HTML list, read 'employees.html.chunk-size' rows at a time as it is iterated
+    public EmployeeRows findRows(Long after, Integer limit) {
+        var html = employeeProperties.getHtml();
+        int size = limit == null || limit <= 0 ? html.getDefaultSize() : Math.min(limit, html.getMaxSize());
+        return new EmployeeRows(after == null ? 0L : after, size, html.getChunkSize(), this::findPage);
+    }
+
+    public EmployeePage search(String namePrefix, Integer minAge, Integer maxAge, Long after, Integer limit) {
+
+        long from = after == null ? 0L : after;
+        int size = pageSize(limit);
+        var namePattern = likePrefix(namePrefix);
+
+        return coalesce(Arrays.asList("search", namePattern, minAge, maxAge, from, size), () -> toPage(
+                employeeRepository.search(from, namePattern, minAge, maxAge, PageRequest.ofSize(size))));
     }
 
-    public Employee findById(Long id) {
-        return employeeRepository.findById(id)
-                .orElse(null);
+    // cached for every client, so read from the primary even with replicas
+    @Cacheable(cacheNames = EMPLOYEES_CACHE, key = "#id", unless = "#result == null")
+    public EmployeeDto findById(Long id) {
+        return ReadWriteRoutingDataSource.onPrimary(() -> coalesce(List.of("id", id), () -> employeeRepository.findProjectedById(id)
+                .orElse(null)));
     }
 
+    // the employee if 'findById' has it cached, null otherwise (nothing is read)
+    public EmployeeDto findCachedById(Long id) {
+        var cache = cacheManager.getCache(EMPLOYEES_CACHE);
+        return cache != null ? cache.get(id, EmployeeDto.class) : null;
+    }
+
+    // The change log after 'since', oldest first, up to the first change that may still have an uncommitted one before it
+    // (see 'changesHorizon'). So the last sequence served is where the next read can go on from, nothing before it
+    // commits later. Read from the primary: a replica applies commits in their order, not in that of the sequences
+    public List<EmployeeChange> findChanges(long since, Integer limit) {
+        int size = changesSize(limit);
+        return ReadWriteRoutingDataSource.onPrimary(() -> coalesce(List.of("changes", since, size), () -> {
+            var horizon = changesHorizon(); // before the query, a write in flight that commits during it would be missed
+            return employeeChangeRepository.findBySequenceGreaterThanOrderBySequenceAsc(since, PageRequest.ofSize(size))
+                    .stream()
+                    .takeWhile(change -> change.getRecordedAt() == null || change.getRecordedAt().isBefore(horizon))
+                    .toList();
+        }));
+    }
+
+    int changesSize(Integer limit) {
+        var changes = employeeProperties.getChanges();
+        return limit == null || limit <= 0 ? changes.getDefaultSize() : Math.min(limit, changes.getMaxSize());
+    }
+
+    // null - no such employee
+    public Long findVersionById(Long id) {
+        return coalesce(List.of("version", id), () -> employeeRepository.findVersionById(id));
+    }
+
+    public void export(Consumer<EmployeeDto> consumer) {
+
+        var fetchSize = employeeProperties.getExport().getFetchSize();
+        if (employeeSnapshot.canServe()) {
+            employeeSnapshot.forEach(fetchSize, consumer);
+            return;
+        }
+
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> employeeRepository.forEachEmployee(fetchSize, consumer));
+    }
+
+    // one transaction for the row and its change log entry
+    @Transactional
     public Employee create(Employee employee) {
-        return employeeRepository.save(employee);
+        employee.setVersion(null); // a new row starts at version 0, whatever the client sent
+        var employeeCreated = employeeRepository.save(employee);
+        forgetReadsInFlight();
+        recordChanges(EmployeeChange.Type.INSERT, List.of(employeeCreated.getId()));
+        if (employeeStats.isEnabled())
+            employeeStats.created(employeeCreated.getAge());
+        if (employeeSnapshot.isEnabled())
+            employeeSnapshot.created(employeeCreated);
+        return employeeCreated;
     }
 
     @Transactional
+    public int createAll(Iterator<Employee> employees) {
+        forgetReadsInFlight();
+        if (employeeStats.isEnabled())
+            employees = employeeStats.created(employees);
+        if (employeeSnapshot.isEnabled())
+            employees = employeeSnapshot.created(employees);
+        return employeeRepository.persistInBatches(employees, employeeProperties.getBatch().getSize(),
+                batch -> recordChanges(EmployeeChange.Type.INSERT, batch.stream().map(Employee::getId).toList()));
+    }
+
+    // With a version on 'employee' the update only applies to that version of the row (throws if the row has moved on),
+    // and the version returned is the new one. Without it the update is unconditional and the new version is not known
+    @Transactional
+    @CacheEvict(cacheNames = EMPLOYEES_CACHE, key = "#id")
     public Employee update(Long id, Employee employee) {
-        if (!employeeRepository.existsById(id))
+
+        var expectedVersion = employee.getVersion();
+        var before = statsBefore(id, expectedVersion);
+
+        int updated = employeeRepository.updateById(id, employee.getName(), employee.getAge(),
+                before != null ? before.version() : expectedVersion);
+        if (updated == 0 && before != null && expectedVersion == null) {
+            before = null; // written by someone else since it was cached
+            updated = employeeRepository.updateById(id, employee.getName(), employee.getAge(), null);
+        }
+        if (updated == 0) {
+            if (expectedVersion != null && employeeRepository.existsById(id))
+                throw new OptimisticLockingFailureException("Employee " + id + " is no longer at version " + expectedVersion);
             return null;
+        }
+
+        recordChanges(EmployeeChange.Type.UPDATE, List.of(id));
+        forgetReadsInFlight();
+        if (before != null)
+            employeeStats.updated(before.age(), employee.getAge());
+        else
+            markStatsStale(1);
+
         employee.setId(id);
-        return employeeRepository.save(employee);
+        employee.setVersion(expectedVersion != null ? expectedVersion + 1 : null);
+        if (employeeSnapshot.isEnabled())
+            employeeSnapshot.updated(id, employee.getName(), employee.getAge(), employee.getVersion());
+        return employee;
     }
 
+    @Transactional
+    @CacheEvict(cacheNames = EMPLOYEES_CACHE, key = "#id")
     public void deleteById(Long id) {
-        employeeRepository.deleteById(id);
+
+        var before = statsBefore(id, null);
+
+        recordChanges(EmployeeChange.Type.DELETE, List.of(id));
+        int deleted = before != null ? employeeRepository.deleteEmployeeByIdAndVersion(id, before.version()) : 0;
+        if (deleted == 0) {
+            before = null;
+            deleted = employeeRepository.deleteEmployeeById(id);
+        }
+        if (deleted == 0)
+            return;
+
+        forgetReadsInFlight();
+        if (before != null)
+            employeeStats.deleted(before.age());
+        else
+            markStatsStale(1);
+        if (employeeSnapshot.isEnabled())
+            employeeSnapshot.deleted(List.of(id));
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = EMPLOYEES_CACHE, allEntries = true)
+    public int deleteAllById(Collection<Long> ids) {
+        if (ids.isEmpty())
+            return 0;
+        if (employeeSnapshot.isEnabled())
+            employeeSnapshot.deleted(ids);
+        recordChanges(EmployeeChange.Type.DELETE, ids);
+        forgetReadsInFlight();
+        return markStatsStale(employeeRepository.deleteEmployeesByIdIn(ids));
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = EMPLOYEES_CACHE, allEntries = true)
+    public int adjustAge(int delta, String namePrefix, Integer minAge, Integer maxAge) {
+        forgetReadsInFlight();
+        if (isRecordingChanges()
+                && employeeChangeRepository.recordAgeAdjustment(delta, likePrefix(namePrefix), minAge, maxAge, recordedAt()) > 0)
+            eventPublisher.publishEvent(new EmployeeChangeFeed.ChangesRecorded());
+        var adjusted = markStatsStale(employeeRepository.adjustAge(delta, likePrefix(namePrefix), minAge, maxAge));
+        if (adjusted > 0 && employeeSnapshot.isEnabled())
+            employeeSnapshot.markStale();
+        return adjusted;
+    }
+
+    // The row as 'findById' has it cached, for the statistics to take a single-row write as a delta: the write is then
+    // made conditional on that version, so the age it replaces is the cached one. Null - not cached (or not at the
+    // version the client expects), the statistics are rebuilt instead; reading the age would cost another statement
+    private EmployeeDto statsBefore(Long id, Long expectedVersion) {
+        if (!employeeStats.isEnabled())
+            return null;
+        var cached = findCachedById(id);
+        if (cached == null || cached.version() == null || expectedVersion != null && !expectedVersion.equals(cached.version()))
+            return null;
+        return cached;
+    }
+
+    // A set-based write doesn't say which ages it replaced, the statistics are rebuilt on their next read instead
+    private int markStatsStale(int affected) {
+        if (affected > 0 && employeeStats.isEnabled())
+            employeeStats.markStale();
+        return affected;
+    }
+
+    // Reads arriving once the write has committed don't join one that started before, which may not have seen it.
+    // Runs before the cache evictions, so a read that misses after those can only get the row as written
+    private void forgetReadsInFlight() {
+        AfterCommit.run(readsInFlight::forgetAll);
+    }
+
+    private boolean isRecordingChanges() {
+        return employeeProperties.getChanges().isEnabled();
+    }
+
+    // in the transaction of the write; waiting long-polls hear of it once that commits
+    private void recordChanges(EmployeeChange.Type type, Collection<Long> ids) {
+        if (isRecordingChanges() && employeeChangeRepository.recordChanges(type, ids, recordedAt()) > 0)
+            eventPublisher.publishEvent(new EmployeeChangeFeed.ChangesRecorded());
+    }
+
+    // The time of a change about to be recorded. The first change of a transaction also enters it among those in flight
+    private Instant recordedAt() {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(RecordingTransaction.class)) {
+            var transaction = new RecordingTransaction();
+            recordingTransactions.add(transaction);
+            TransactionSynchronizationManager.bindResource(RecordingTransaction.class, transaction);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RecordingTransaction.class);
+                    recordingTransactions.remove(transaction);
+                }
+            });
+        }
+
+        return Instant.now();
+    }
+
+    // Sequences are taken at insert, but transactions commit in any order, so a change may only be served once
+    // every change with a lower sequence has committed. Those recorded through this instance are known until they
+    // commit, those of other instances are given 'employees.changes.visibility-delay' to commit
+    private Instant changesHorizon() {
+        var horizon = Instant.now().minus(employeeProperties.getChanges().getVisibilityDelay());
+        for (var transaction : recordingTransactions)
+            if (transaction.since.isBefore(horizon))
+                horizon = transaction.since;
+        return horizon;
+    }
+
+    private static EmployeePage toPage(Slice<EmployeeDto> slice) {
+        var content = slice.getContent();
+        var nextCursor = slice.hasNext() ? content.get(content.size() - 1).id() : null;
+        return new EmployeePage(content, nextCursor);
+    }
+
+    // Runs the query in a read-only transaction. Callers wait for an identical query in flight *before* the transaction
+    // is opened, so waiting doesn't hold a connection. A caller inside a writing transaction must see its own
+    // uncommitted changes, so it never joins someone else's read. Nor does a caller whose reads go to the primary
+    // join one that went to a replica
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(List<Object> key, Supplier<T> query) {
+
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+            return transaction.execute(status -> query.get());
+
+        return (T) readsInFlight.load(List.of(key, ReadWriteRoutingDataSource.isPrimaryOnly()),
+                () -> transaction.execute(status -> query.get()));
+    }
+
+    // 'abc' -> 'abc%', with LIKE wildcards in the prefix itself escaped by '!' (backslash means different things to MySQL and H2)
+    private static String likePrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty())
+            return null;
+        return prefix.replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_") + "%";
+    }
+
+    private int pageSize(Integer limit) {
+        var page = employeeProperties.getPage();
+        if (limit == null || limit <= 0)
+            return page.getDefaultSize();
+        return Math.min(limit, page.getMaxSize());
     }
 }
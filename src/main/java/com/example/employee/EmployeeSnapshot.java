@@ -0,0 +1,250 @@
+package com.example.employee;
+
+import com.example.config.ReadWriteRoutingDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 'employees.snapshot.enabled=true' - the whole employees table held in memory as {@link EmployeeColumns},
+ * so the full list, its pages and the export are served without a query and without an entity per row.
+ * Loaded at startup, then kept up to date by the writes of {@link EmployeeService} once they commit.
+ * 'adjustAge' marks it stale: it is reloaded in the background, and reads go to the database until that is done.
+ * It is also reloaded every 'employees.snapshot.refresh-interval' (which picks up writes made by other instances
+ * or directly in the database).
+ */
+@Slf4j
+@Component
+public class EmployeeSnapshot implements SmartInitializingSingleton, SchedulingConfigurer {
+
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeProperties employeeProperties;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final AsyncTaskExecutor taskExecutor;
+
+    // reads share the columns, a committed write has them to itself for the few array copies it makes
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private EmployeeColumns columns = new EmployeeColumns();
+    // writes committed while the table is being reloaded, replayed onto the reloaded columns; null when not reloading
+    private List<Consumer<EmployeeColumns>> changesDuringReload;
+    // it is stale (and not served) until a reload started after the last mark has replaced it
+    private final AtomicLong staleMarks = new AtomicLong(1);
+    private volatile long loadedMarks;
+
+    public EmployeeSnapshot(EmployeeRepository employeeRepository,
+                            EmployeeProperties employeeProperties,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) AsyncTaskExecutor taskExecutor) {
+        this.employeeRepository = employeeRepository;
+        this.employeeProperties = employeeProperties;
+        this.transactionManager = transactionManager;
+        this.meterRegistry = meterRegistry;
+        this.taskExecutor = taskExecutor;
+    }
+
+    public boolean isEnabled() {
+        return employeeProperties.getSnapshot().isEnabled();
+    }
+
+    // Not while it is stale (being reloaded). Nor for a caller inside a writing transaction,
+    // which must see its own uncommitted changes, and only the database has those
+    public boolean canServe() {
+        return isEnabled() && loadedMarks == staleMarks.get() && !(TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    public List<EmployeeDto> findAll() {
+        return read(columns -> columns.page(Long.MIN_VALUE, Integer.MAX_VALUE));
+    }
+
+    public EmployeePage findPage(long after, int size) {
+        return read(columns -> {
+            var content = columns.page(after, size);
+            var last = content.isEmpty() ? null : content.id(content.size() - 1);
+            return new EmployeePage(content, last != null && columns.hasAfter(last) ? last : null);
+        });
+    }
+
+    // a chunk at a time, the lock isn't held while 'consumer' writes to a slow client
+    public void forEach(int chunkSize, Consumer<EmployeeDto> consumer) {
+        long after = Long.MIN_VALUE;
+        List<EmployeeDto> chunk;
+        do {
+            long from = after;
+            chunk = read(columns -> columns.page(from, chunkSize));
+            chunk.forEach(consumer);
+            if (!chunk.isEmpty())
+                after = chunk.get(chunk.size() - 1).id();
+        } while (chunk.size() == chunkSize);
+    }
+
+    public synchronized void reload() {
+
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        long marks;
+        lock.writeLock().lock();
+        try {
+            changesDuringReload = new ArrayList<>();
+            marks = staleMarks.get(); // before the query, so that a write marking it stale meanwhile isn't lost
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        var reloaded = new EmployeeColumns();
+        var loaded = false;
+        try {
+            // every client is served from it, so read from the primary even with replicas
+            ReadWriteRoutingDataSource.runOnPrimary(() -> transaction.executeWithoutResult(status ->
+                    employeeRepository.forEachEmployee(employeeProperties.getExport().getFetchSize(), reloaded::put)));
+            loaded = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // the rows read may or may not include writes that committed during the query, replaying them is harmless
+                // (a write without a version bumps the row's version twice, which only changes the ETag of its page)
+                if (loaded) {
+                    changesDuringReload.forEach(change -> change.accept(reloaded));
+                    columns = reloaded;
+                    loadedMarks = marks;
+                }
+                changesDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        log.info("Employee snapshot loaded: {} rows in {} KB", reloaded.size(), reloaded.heapBytes() / 1024);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (isEnabled()) {
+            reload();
+            Gauge.builder("employees.snapshot.heap", this, EmployeeSnapshot::heapBytes)
+                    .baseUnit("bytes")
+                    .description("Heap taken by the in-memory snapshot of the employees table")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        if (isEnabled()) {
+            var interval = employeeProperties.getSnapshot().getRefreshInterval();
+            registrar.addFixedDelayTask(new FixedDelayTask(this::reload, interval, interval));
+        }
+    }
+
+    void created(Employee employee) {
+        updated(employee.getId(), employee.getName(), employee.getAge(), employee.getVersion());
+    }
+
+    // collects the employees as they are inserted (each one has its id by the time the next is asked for),
+    // and adds them once the transaction commits
+    Iterator<Employee> created(Iterator<Employee> employees) {
+
+        var created = new EmployeeColumns();
+
+        return new Iterator<>() {
+
+            private Employee inserted;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                var hasNext = employees.hasNext();
+                if (!hasNext && !done) {
+                    done = true;
+                    collectInserted();
+                    AfterCommit.run(() -> change(columns -> columns.putAll(created)));
+                }
+                return hasNext;
+            }
+
+            @Override
+            public Employee next() {
+                collectInserted();
+                inserted = employees.next();
+                return inserted;
+            }
+
+            private void collectInserted() {
+                if (inserted != null)
+                    created.put(inserted.getId(), inserted.getName(), inserted.getAge(), inserted.getVersion());
+                inserted = null;
+            }
+        };
+    }
+
+    // a null 'version' - the write doesn't know it (unconditional update), the snapshot bumps its own
+    void updated(long id, String name, Integer age, Long version) {
+        AfterCommit.run(() -> change(columns -> columns.put(id, name, age, version)));
+    }
+
+    void deleted(Collection<Long> ids) {
+        var deleted = List.copyOf(ids);
+        AfterCommit.run(() -> change(columns -> columns.removeAll(deleted)));
+    }
+
+    // marks made while a reload is running queue another one, which then finds the snapshot stale and reloads again
+    void markStale() {
+        AfterCommit.run(() -> {
+            staleMarks.incrementAndGet();
+            taskExecutor.execute(this::reloadIfStale);
+        });
+    }
+
+    private <T> T read(Function<EmployeeColumns, T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(columns);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long heapBytes() {
+        return read(EmployeeColumns::heapBytes);
+    }
+
+    private synchronized void reloadIfStale() {
+        if (loadedMarks != staleMarks.get())
+            reload();
+    }
+
+    private void change(Consumer<EmployeeColumns> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(columns);
+            if (changesDuringReload != null)
+                changesDuringReload.add(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
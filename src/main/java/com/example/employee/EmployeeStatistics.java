@@ -0,0 +1,11 @@
+package com.example.employee;
+
+import java.util.Map;
+
+/**
+ * Headcount and age distribution. Min, max and average are over the employees with an age, null if none has one.
+ * 'ageHistogram' maps buckets ("20-29", ..., "unknown") to employees, in age order.
+ */
+public record EmployeeStatistics(long count, Integer minAge, Integer maxAge, Double averageAge,
+                                 Map<String, Long> ageHistogram) {
+}
@@ -0,0 +1,129 @@
+package com.example.employee;
+
+import com.example.config.ReadWriteRoutingDataSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory age histogram behind GET /api/employees/stats, so the statistics cost the same whatever the table size.
+ * Built by one GROUP BY query at startup, then kept up to date by the writes of {@link EmployeeService} once they commit.
+ * Writes that don't know the ages they replace (set-based ones, or single rows that weren't cached) only mark it stale,
+ * and the next read rebuilds it. It is also rebuilt every 'employees.stats.reconcile-interval', which picks up writes
+ * made by other instances or directly in the database. Concurrent rebuilds share one query.
+ */
+@Component
+@RequiredArgsConstructor
+public class EmployeeStats implements SmartInitializingSingleton, SchedulingConfigurer {
+
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeProperties employeeProperties;
+    private final PlatformTransactionManager transactionManager;
+
+    private final AgeHistogram histogram = new AgeHistogram();
+    private final SingleFlight<String, Boolean> rebuilds = new SingleFlight<>();
+    // writes that have marked it stale, and how many of them the last rebuild had seen: a read while one is running joins it
+    private final AtomicLong staleMarks = new AtomicLong(1);
+    private volatile long rebuiltAt;
+
+    public boolean isEnabled() {
+        return employeeProperties.getStats().isEnabled();
+    }
+
+    public EmployeeStatistics statistics() {
+        if (rebuiltAt != staleMarks.get())
+            reconcile();
+        return histogram.statistics(employeeProperties.getStats().getBucketWidth());
+    }
+
+    // writes racing with it may be counted twice or not at all, until the next reconcile
+    public void reconcile() {
+        rebuilds.load("histogram", () -> {
+            rebuild();
+            return true;
+        });
+    }
+
+    private void rebuild() {
+
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        long marks = staleMarks.get(); // before the query, so that a write marking it stale meanwhile isn't lost
+        // every client is served from it, so read from the primary even with replicas
+        var ageCounts = ReadWriteRoutingDataSource.onPrimary(() -> transaction.execute(status -> employeeRepository.countByAge()));
+        histogram.replace(ageCounts);
+        rebuiltAt = marks;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (isEnabled())
+            reconcile();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        if (isEnabled()) {
+            var interval = employeeProperties.getStats().getReconcileInterval();
+            registrar.addFixedDelayTask(new FixedDelayTask(this::reconcile, interval, interval));
+        }
+    }
+
+    void created(Integer age) {
+        AfterCommit.run(() -> histogram.add(age, 1));
+    }
+
+    // counts the ages of the employees as they are iterated, and adds them once the transaction commits
+    Iterator<Employee> created(Iterator<Employee> employees) {
+
+        AgeHistogram created;
+        if (AfterCommit.isDeferred()) {
+            created = new AgeHistogram();
+            AfterCommit.run(() -> histogram.addAll(created));
+        } else {
+            created = histogram;
+        }
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return employees.hasNext();
+            }
+
+            @Override
+            public Employee next() {
+                var employee = employees.next();
+                created.add(employee.getAge(), 1);
+                return employee;
+            }
+        };
+    }
+
+    void updated(Integer oldAge, Integer newAge) {
+        AfterCommit.run(() -> {
+            histogram.add(oldAge, -1);
+            histogram.add(newAge, 1);
+        });
+    }
+
+    void deleted(Integer age) {
+        AfterCommit.run(() -> histogram.add(age, -1));
+    }
+
+    // a read from now on doesn't join a rebuild that started before the write
+    void markStale() {
+        AfterCommit.run(() -> {
+            staleMarks.incrementAndGet();
+            rebuilds.forgetAll();
+        });
+    }
+}
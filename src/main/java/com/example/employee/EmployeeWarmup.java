@@ -0,0 +1,140 @@
+package com.example.employee;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 'employees.warmup.enabled' - runs the hot paths before the pod takes traffic, so the first users don't pay for a cold JIT,
+ * an empty connection pool, Hibernate's query plan cache and Thymeleaf's template cache.
+ * Spring Boot only reports readiness ('/actuator/health/readiness') once the application runners have returned,
+ * so the k8s readiness probe keeps traffic away until this is done; liveness is up all along.
+ * Read-only: the service's reads, JSON both ways, and GETs of the API and the pages through the server itself.
+ * Stops after 'iterations' or once 'time-budget' is spent, whichever comes first; the time taken is 'application.warmup.time'.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmployeeWarmup implements ApplicationRunner {
+
+    private final EmployeeService employeeService;
+    private final EmployeeProperties employeeProperties;
+    private final ObjectMapper objectMapper;
+    private final DataSource dataSource;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void run(ApplicationArguments args) {
+
+        var warmup = employeeProperties.getWarmup();
+        if (!warmup.isEnabled())
+            return;
+
+        long start = System.nanoTime();
+        long deadline = start + warmup.getTimeBudget().toNanos();
+
+        fillConnectionPool();
+
+        // null without a web server (tests on a mock servlet environment)
+        var port = environment.getProperty("local.server.port", Integer.class);
+
+        int iterations = 0;
+        try (var http = port != null ? HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build() : null) {
+            while (iterations < warmup.getIterations() && System.nanoTime() < deadline) {
+                runOnce(http, port);
+                iterations++;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Warmup stopped after {} iterations", iterations, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        TimeGauge.builder("application.warmup.time", () -> elapsed, TimeUnit.NANOSECONDS)
+                .description("Time taken by the warmup before the application reported ready")
+                .register(meterRegistry);
+        log.info("Warmup: {} iterations in {} ms", iterations, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    private void runOnce(HttpClient http, Integer port) throws IOException, InterruptedException {
+
+        var page = employeeService.findPage(null, null);
+        employeeService.search("a", 20, 60, null, null);
+        employeeService.findRows(null, null).forEachRemaining(employee -> {
+        });
+
+        var json = objectMapper.writeValueAsBytes(page.content());
+        objectMapper.readValue(json, new TypeReference<List<Employee>>() {});
+
+        var id = page.content().isEmpty() ? null : page.content().get(0).id();
+        if (id != null)
+            employeeService.findVersionById(id);
+
+        if (http == null)
+            return;
+
+        get(http, port, "/api/employees", "application/json");
+        get(http, port, "/api/employees/search?namePrefix=a", "application/json");
+        get(http, port, "/employees", "text/html");
+        if (id != null) {
+            get(http, port, "/api/employees/" + id, "application/json");
+            get(http, port, "/employees/" + id, "text/html");
+            get(http, port, "/employees/" + id + "/edit", "text/html");
+        }
+    }
+
+    private static void get(HttpClient http, int port, String path, String accept) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept)
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        http.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    // every connection of the pool opened now rather than by the first requests
+    // (Hikari fills it in the background too, but not necessarily before readiness)
+    private void fillConnectionPool() {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class))
+                return;
+            int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+
+            var connections = new ArrayList<Connection>();
+            try {
+                for (int i = 0; i < poolSize; i++) {
+                    var connection = dataSource.getConnection();
+                    connections.add(connection);
+                    connection.isValid(1); // a lazy connection proxy (read/write routing) only connects when used
+                }
+            } finally {
+                for (var connection : connections)
+                    connection.close();
+            }
+        } catch (SQLException e) {
+            log.warn("Connection pool could not be filled", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.employee;
+
+/**
+ * Status of a create queued by {@link EmployeeWriteBehind}, polled under 'trackingId'.
+ * 'id' is set once the employee is written, 'error' if it could not be.
+ */
+public record EmployeeWrite(String trackingId, Status status, Long id, String error) {
+
+    public enum Status { PENDING, DONE, FAILED }
+
+    static EmployeeWrite pending(String trackingId) {
+        return new EmployeeWrite(trackingId, Status.PENDING, null, null);
+    }
+
+    static EmployeeWrite done(String trackingId, Long id) {
+        return new EmployeeWrite(trackingId, Status.DONE, id, null);
+    }
+
+    static EmployeeWrite failed(String trackingId, String error) {
+        return new EmployeeWrite(trackingId, Status.FAILED, null, error);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.employee;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 'employees.write-behind.enabled=true' - creates are queued and written by a single background thread.
+ * It takes whatever has piled up (up to 'employees.batch.size') and inserts it in one transaction as one JDBC batch,
+ * so the insert rate is no longer bound by one round trip per request. The queue is bounded, when it is full
+ * {@link #submit} refuses. On shutdown, after the web server has stopped taking requests, the queue is drained.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "employees.write-behind.enabled", havingValue = "true")
+public class EmployeeWriteBehind implements SmartLifecycle {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final EmployeeService employeeService;
+    private final EmployeeProperties employeeProperties;
+    private final BlockingQueue<Queued> queue;
+    private final Cache<String, EmployeeWrite> writes;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public EmployeeWriteBehind(EmployeeService employeeService, EmployeeProperties employeeProperties,
+                               MeterRegistry meterRegistry) {
+
+        this.employeeService = employeeService;
+        this.employeeProperties = employeeProperties;
+
+        var writeBehind = employeeProperties.getWriteBehind();
+        this.queue = new ArrayBlockingQueue<>(writeBehind.getCapacity());
+        this.writes = Caffeine.newBuilder()
+                .expireAfterWrite(writeBehind.getStatusRetention())
+                .build();
+
+        Gauge.builder("employees.write-behind.queued", queue, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    // null - the queue is full or shutting down, try again later
+    public EmployeeWrite submit(Employee employee) {
+
+        if (!running)
+            return null;
+
+        var write = EmployeeWrite.pending(UUID.randomUUID().toString());
+        writes.put(write.trackingId(), write);
+        if (!queue.offer(new Queued(write.trackingId(), employee))) {
+            writes.invalidate(write.trackingId());
+            return null;
+        }
+        return write;
+    }
+
+    // null - unknown, or its status has expired
+    public EmployeeWrite status(String trackingId) {
+        return writes.getIfPresent(trackingId);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform()
+                .name("employee-write-behind")
+                .start(this::drain);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            if (!writer.join(employeeProperties.getWriteBehind().getShutdownTimeout()))
+                log.warn("Write-behind queue not drained on shutdown, {} employees not written", queue.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // below the web server's phase (DEFAULT_PHASE - 2048): starts before it and stops after it, so no request can queue behind the final drain
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drain() {
+
+        int batchSize = employeeProperties.getBatch().getSize();
+        var batch = new ArrayList<Queued>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                // keep draining, the loop ends once the queue is empty after 'stop()'
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Queued> batch) {
+        try {
+            employeeService.createAll(batch.stream().map(Queued::employee).iterator());
+            batch.forEach(queued -> writes.put(queued.trackingId(),
+                    EmployeeWrite.done(queued.trackingId(), queued.employee().getId())));
+        } catch (RuntimeException batchFailure) {
+            // the batch was rolled back as a whole, write them one by one so only the bad ones fail
+            batch.forEach(this::writeOne);
+        }
+    }
+
+    private void writeOne(Queued queued) {
+        try {
+            queued.employee().setId(null);
+            var employee = employeeService.create(queued.employee());
+            writes.put(queued.trackingId(), EmployeeWrite.done(queued.trackingId(), employee.getId()));
+        } catch (RuntimeException e) {
+            log.warn("Queued employee {} could not be written", queued.trackingId(), e);
+            writes.put(queued.trackingId(), EmployeeWrite.failed(queued.trackingId(), e.getMessage()));
+        }
+    }
+
+    private record Queued(String trackingId, Employee employee) {
+    }
+}
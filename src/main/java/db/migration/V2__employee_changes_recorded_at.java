@@ -0,0 +1,37 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * When each change was recorded, the change feed holds back those whose earlier writes may not have committed yet.
+ * Changes recorded before the column existed stay NULL and are served as they are.
+ * Java, as MySQL has no 'ADD COLUMN IF NOT EXISTS': the column is only added where 'ddl-auto=update' hasn't already
+ * (a database baselined at 0, see 'spring.flyway.baseline-*' in application-prod.properties).
+ */
+public class V2__employee_changes_recorded_at extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        var connection = context.getConnection();
+        if (!hasColumn(connection, "employee_changes", "recorded_at")) {
+            try (var statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE employee_changes ADD COLUMN recorded_at datetime(6)");
+            }
+        }
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        var metaData = connection.getMetaData();
+        if (metaData.storesUpperCaseIdentifiers()) {
+            table = table.toUpperCase();
+            column = column.toUpperCase();
+        }
+        try (var columns = metaData.getColumns(connection.getCatalog(), connection.getSchema(), table, column)) {
+            return columns.next();
+        }
+    }
+}
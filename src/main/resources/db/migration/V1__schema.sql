@@ -0,0 +1,49 @@
+-- The schema as of the first migration. 'IF NOT EXISTS' throughout, so that it also applies over a database
+-- that 'ddl-auto=update' created before Flyway (see 'spring.flyway.baseline-*' in application-prod.properties).
+-- Later changes go into V2__..., V3__... - never edit a migration that has been applied.
+
+CREATE TABLE IF NOT EXISTS employees(
+    id bigint PRIMARY KEY AUTO_INCREMENT,
+    name varchar(128) NOT NULL,
+    age int,
+    version bigint NOT NULL DEFAULT 0,
+    INDEX idx_employees_name (name),
+    INDEX idx_employees_age (age)
+);
+
+-- id generator of 'Employee' (MySQL has no sequences, so Hibernate emulates one with this table).
+-- Ids are handed out in blocks of 50 (the 'allocationSize'), and the value read is the last id of its block:
+-- seeded at MAX(id) + 50 + 1 so that the first block starts past the existing ids. Also raised there where
+-- 'ddl-auto=update' created the table at 1 over AUTO_INCREMENT ids (never lowered, blocks in use stay valid)
+CREATE TABLE IF NOT EXISTS employees_seq(
+    next_val bigint
+);
+INSERT INTO employees_seq(next_val)
+    SELECT COALESCE(MAX(id), 0) + 51 FROM employees
+    WHERE NOT EXISTS (SELECT * FROM employees_seq);
+UPDATE employees_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + 51 FROM employees)
+    WHERE next_val < (SELECT COALESCE(MAX(id), 0) + 51 FROM employees);
+
+-- change log behind GET /api/employees/changes, appended to in the transaction of every write
+CREATE TABLE IF NOT EXISTS employee_changes(
+    sequence bigint PRIMARY KEY AUTO_INCREMENT,
+    type varchar(6) NOT NULL,
+    employee_id bigint NOT NULL,
+    name varchar(255),
+    age int,
+    version bigint
+);
+
+-- CSV imports and their progress, see 'EmployeeImporter'
+CREATE TABLE IF NOT EXISTS employee_imports(
+    id bigint PRIMARY KEY AUTO_INCREMENT,
+    status varchar(7) NOT NULL,
+    file varchar(1024) NOT NULL,
+    rows_read bigint NOT NULL,
+    rows_imported bigint NOT NULL,
+    rows_rejected bigint NOT NULL,
+    error varchar(1024),
+    created_at datetime(6),
+    started_at datetime(6),
+    updated_at datetime(6)
+);
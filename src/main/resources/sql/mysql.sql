@@ -1,5 +0,0 @@
-CREATE TABLE IF NOT EXISTS employees(
-    id bigint PRIMARY KEY AUTO_INCREMENT,
-    name varchar(128) NOT NULL,
-    age int
-)
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.example;
+
+import com.example.employee.Employee;
+import com.example.employee.EmployeeService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// like ProdProfileTest, but the migrations run over a database that 'ddl-auto=update' made before there were any:
+// employees numbered by AUTO_INCREMENT without an 'employees_seq', and a change log that already has 'recorded_at'
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ProdExistingDatabaseTest.URL,
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@ActiveProfiles("prod")
+class ProdExistingDatabaseTest {
+
+    static final String URL = "jdbc:h2:mem:prod-existing;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final int EXISTING = 100;
+
+    static {
+        var database = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+        database.execute("CREATE TABLE employees (id bigint PRIMARY KEY AUTO_INCREMENT, name varchar(128) NOT NULL, age int, version bigint NOT NULL DEFAULT 0)");
+        for (int i = 0; i < EXISTING; i++)
+            database.update("INSERT INTO employees (name, age) VALUES (?, ?)", "existing " + i, i);
+        database.execute("CREATE TABLE employee_changes (sequence bigint PRIMARY KEY AUTO_INCREMENT, type varchar(6) NOT NULL, "
+                + "employee_id bigint NOT NULL, name varchar(255), age int, version bigint, recorded_at datetime(6))");
+    }
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Test
+    void testNewIdsFollowTheExistingOnes() {
+
+        assertEquals("2", flyway.info().current().getVersion().getVersion());
+
+        var created = employeeService.create(new Employee("after migration", 30));
+        var batch = List.of(new Employee("batch one", 31), new Employee("batch two", 32));
+        employeeService.createAll(batch.iterator());
+
+        assertTrue(created.getId() > EXISTING);
+        batch.forEach(employee -> assertTrue(employee.getId() > EXISTING));
+        assertEquals(EXISTING + 3, employeeService.findAll().size());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example;
+
+import com.example.employee.Employee;
+import com.example.employee.EmployeeService;
+import com.example.employee.EmployeeSnapshot;
+import com.example.employee.EmployeeStats;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// an embedded H2 database of its own in MySQL mode (with Hibernate's MySQL dialect, so ids come from the 'employees_seq' table),
+// for the migrations to run on an empty schema; 'validate' checks the entities against what they created
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:prod;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@ActiveProfiles("prod")
+class ProdProfileTest {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Test
+    void testMigratesAndStartsLazily() {
+
+        assertEquals("2", flyway.info().current().getVersion().getVersion());
+
+        var beanFactory = context.getBeanFactory();
+        assertTrue(beanFactory.getBeanDefinition("employeeRestController").isLazyInit());
+        // created at startup all the same: Spring Boot keeps SmartInitializingSingleton beans eager
+        assertTrue(beanFactory.containsSingleton("employeeStats"));
+        assertNotNull(context.getBean(EmployeeStats.class));
+        assertNotNull(context.getBean(EmployeeSnapshot.class));
+
+        var employee = employeeService.create(new Employee("prod", 30));
+        assertEquals(employee.getName(), employeeService.findById(employee.getId()).name());
+        employeeService.deleteById(employee.getId());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example;
+
+import com.example.config.ReadWriteRoutingDataSource;
+import com.example.employee.Employee;
+import com.example.employee.EmployeeDto;
+import com.example.employee.EmployeeService;
+import com.example.employee.EmployeeSnapshot;
+import com.example.employee.EmployeeStats;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// embedded H2 databases of their own for the primary and a replica that lags behind it: the replica has the table,
+// but only the rows this test puts there, as they were before the writes it hasn't replayed yet
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-test-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "app.datasource.routing.enabled=true",
+        "app.datasource.routing.replicas[0].url=" + ReplicaRoutingTest.REPLICA_URL
+})
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-test-lagging;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    static {
+        replica.execute("CREATE TABLE IF NOT EXISTS employees (id BIGINT PRIMARY KEY, name VARCHAR(255), age INT, version BIGINT NOT NULL DEFAULT 0)");
+    }
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeStats employeeStats;
+
+    @Autowired
+    private EmployeeSnapshot employeeSnapshot;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long written;
+
+    @AfterEach
+    public void cleanUp() {
+        replica.update("DELETE FROM employees");
+        if (written != null)
+            employeeService.deleteById(written);
+    }
+
+    @Test
+    void testSharedReadsComeFromThePrimary() {
+
+        var employee = employeeService.create(new Employee("routing", 30));
+        written = employee.getId();
+        employeeService.update(employee.getId(), new Employee("routing updated", 31));
+        replica.update("INSERT INTO employees (id, name, age, version) VALUES (?, 'routing', 30, 0)", employee.getId());
+
+        // a read of its own still goes to the replica, it is only as stale as the replica
+        var page = employeeService.findPage(employee.getId() - 1, 1);
+        assertEquals("routing", page.content().get(0).name());
+
+        // but what is cached is served to everyone, the client that has just written included
+        assertEquals(new EmployeeDto(employee.getId(), "routing updated", 31, 1L), employeeService.findById(employee.getId()));
+        assertEquals(new EmployeeDto(employee.getId(), "routing updated", 31, 1L), employeeService.findCachedById(employee.getId()));
+
+        employeeStats.reconcile();
+        var count = new JdbcTemplate(primaryDataSource).queryForObject("SELECT COUNT(*) FROM employees", Long.class);
+        assertEquals(count, employeeStats.statistics().count());
+        assertEquals(31, employeeStats.statistics().maxAge());
+
+        employeeSnapshot.reload();
+        assertTrue(employeeSnapshot.findAll().contains(new EmployeeDto(employee.getId(), "routing updated", 31, 1L)));
+    }
+
+    @Test
+    void testReplicaPoolsGiveUpQuicklyAndAreMetered() {
+
+        // a read from the replica starts its pool
+        employeeService.findPage(0L, 1);
+
+        var replicas = (List<?>) ReflectionTestUtils.getField(routingDataSource, "replicas");
+        var pool = (HikariDataSource) ReflectionTestUtils.getField(replicas.get(0), "dataSource");
+        assertEquals(500, pool.getConnectionTimeout());
+        assertNotNull(meterRegistry.find("hikaricp.connections.max").tag("pool", "replica-0").gauge());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Counter readsRejected = meterRegistry.counter("reads.rejected");
+    private final Counter writesRejected = meterRegistry.counter("writes.rejected");
+
+    // the latencies the read limit has been given, -1 for none
+    private final List<Long> readSamples = new ArrayList<>();
+    private boolean ready = true;
+
+    private final GradientConcurrencyLimit readLimit = new GradientConcurrencyLimit(1, 1, 1, 2.0) {
+        @Override
+        void release(long latencyNanos) {
+            readSamples.add(latencyNanos);
+            super.release(latencyNanos);
+        }
+    };
+    private final GradientConcurrencyLimit writeLimit = new GradientConcurrencyLimit(1, 1, 1, 2.0);
+    private final ConcurrencyLimitFilter filter =
+            new ConcurrencyLimitFilter(readLimit, writeLimit, readsRejected, writesRejected, 3, () -> ready);
+
+    @Test
+    void testShedsRequestsOverTheLimit() throws Exception {
+
+        var nestedRead = new MockHttpServletResponse();
+        var nestedWrite = new MockHttpServletResponse();
+
+        // while one read is being served, another is turned away but a write isn't
+        var response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees"), response, new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse servletResponse) {
+                try {
+                    filter.doFilter(new MockHttpServletRequest("GET", "/api/employees/1"), nestedRead, new MockFilterChain());
+                    filter.doFilter(new MockHttpServletRequest("POST", "/api/employees"), nestedWrite, new MockFilterChain());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        assertEquals(200, response.getStatus());
+        assertEquals(503, nestedRead.getStatus());
+        assertEquals("3", nestedRead.getHeader("Retry-After"));
+        assertEquals(200, nestedWrite.getStatus());
+        assertEquals(1, readsRejected.count());
+        assertEquals(0, writesRejected.count());
+
+        // all permits are back
+        assertEquals(0, readLimit.getInFlight());
+        assertEquals(0, writeLimit.getInFlight());
+    }
+
+    @Test
+    void testSamplesOnlyWhatSaysHowBusyTheServerIs() throws Exception {
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees/1"), new MockHttpServletResponse(), new MockFilterChain());
+        // a bulk transfer
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees/export"), new MockHttpServletResponse(), new MockFilterChain());
+        // the warmup's requests, before the application is ready
+        ready = false;
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees/1"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertEquals(3, readSamples.size());
+        assertTrue(readSamples.get(0) >= 0);
+        assertEquals(List.of(-1L, -1L), readSamples.subList(1, 3));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConcurrencyLimitingDataSourceTest {
+
+    private DataSource targetDataSource;
+    private ConcurrencyLimitingDataSource dataSource;
+
+    @BeforeEach
+    public void init() throws Exception {
+        targetDataSource = mock(DataSource.class);
+        when(targetDataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        dataSource = new ConcurrencyLimitingDataSource(targetDataSource, 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    void testLimitsConnectionsOut() throws Exception {
+
+        var first = dataSource.getConnection();
+        var second = dataSource.getConnection();
+        assertEquals(0, dataSource.availablePermits());
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        verify(targetDataSource, times(2)).getConnection();
+
+        first.close();
+        first.close(); // a second close must not hand out a second permit
+        assertEquals(1, dataSource.availablePermits());
+
+        var third = dataSource.getConnection();
+        assertEquals(0, dataSource.availablePermits());
+
+        second.close();
+        third.close();
+        assertEquals(2, dataSource.availablePermits());
+    }
+
+    @Test
+    void testReleasesPermitWhenPoolFails() throws Exception {
+
+        when(targetDataSource.getConnection()).thenThrow(new SQLTransientConnectionException("pool exhausted"));
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(2, dataSource.availablePermits());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FencedCaffeineCacheTest {
+
+    private final FencedCaffeineCache cache = new FencedCaffeineCache("employees", Caffeine.newBuilder().build(), true);
+
+    @Test
+    void testReadThroughIsCached() {
+        assertNull(cache.get(1L));
+        cache.put(1L, "one");
+        assertEquals("one", cache.get(1L).get());
+    }
+
+    @Test
+    void testReadBeforeEvictionIsNotCached() {
+
+        assertNull(cache.get(1L));
+        cache.evict(1L);
+        cache.put(1L, "one as it was");
+        assertNull(cache.get(1L));
+
+        // a miss after the eviction is cached, a fence only holds back reads older than itself
+        cache.put(1L, "one");
+        assertEquals("one", cache.get(1L).get());
+    }
+
+    @Test
+    void testEvictionOnlyFencesItsKey() {
+        assertNull(cache.get(1L));
+        cache.evict(2L);
+        cache.put(1L, "one");
+        assertEquals("one", cache.get(1L).get());
+    }
+
+    @Test
+    void testReadBeforeClearIsNotCached() {
+
+        assertNull(cache.get(1L));
+        cache.clear();
+        cache.put(1L, "one as it was");
+        assertNull(cache.get(1L));
+
+        cache.put(1L, "one");
+        assertEquals("one", cache.get(1L).get());
+    }
+
+    @Test
+    void testPutWithoutMiss() {
+        cache.evict(1L);
+        cache.put(1L, "one");
+        assertEquals("one", cache.get(1L).get());
+    }
+
+    @Test
+    void testMissOfALoadThatPutsNothingIsDropped() throws Throwable {
+
+        // the load fails after the miss, there is no 'put' to consume it
+        var invocation = mock(MethodInvocation.class);
+        when(invocation.proceed()).thenAnswer(call -> {
+            assertNull(cache.get(1L));
+            throw new IllegalStateException("Connection lost");
+        });
+        assertThrows(IllegalStateException.class, () -> FencedCaffeineCache.load(invocation));
+
+        // so a later 'put' isn't taken for its read-through, and fenced by an eviction since
+        cache.evict(1L);
+        cache.put(1L, "one");
+        assertEquals("one", cache.get(1L).get());
+    }
+}
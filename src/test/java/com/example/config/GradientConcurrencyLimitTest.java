@@ -0,0 +1,85 @@
+package com.example.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradientConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void testRejectsOverTheLimit() {
+
+        var limit = new GradientConcurrencyLimit(2, 1, 10, 2.0);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.getInFlight());
+
+        limit.release(-1);
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void testFollowsLatency() {
+
+        var limit = new GradientConcurrencyLimit(10, 2, 50, 2.0);
+
+        // busy and steady: the limit grows up to its maximum
+        for (int i = 0; i < 200; i++)
+            serve(limit, limit.getLimit(), FAST);
+        assertEquals(50, limit.getLimit());
+
+        // ten times slower: it shrinks within a few dozen requests (the baseline only drifts towards the new latency slowly)
+        for (int i = 0; i < 30; i++)
+            serve(limit, limit.getLimit(), SLOW);
+        assertTrue(limit.getLimit() <= 10, "limit " + limit.getLimit());
+
+        // fast again: it recovers
+        for (int i = 0; i < 200; i++)
+            serve(limit, limit.getLimit(), FAST);
+        assertEquals(50, limit.getLimit());
+    }
+
+    @Test
+    void testOneLongRequestDoesNotRaiseTheBaseline() {
+
+        var limit = new GradientConcurrencyLimit(10, 2, 50, 2.0);
+
+        for (int i = 0; i < 200; i++)
+            serve(limit, limit.getLimit(), FAST);
+        assertEquals(50, limit.getLimit());
+
+        // a download to a slow client
+        serve(limit, limit.getLimit(), TimeUnit.SECONDS.toNanos(10));
+
+        // three times slower than usual is still more than is tolerated
+        for (int i = 0; i < 30; i++)
+            serve(limit, limit.getLimit(), 3 * FAST);
+        assertTrue(limit.getLimit() < 30, "limit " + limit.getLimit());
+    }
+
+    @Test
+    void testIdleTrafficDoesNotMoveIt() {
+
+        var limit = new GradientConcurrencyLimit(20, 2, 50, 2.0);
+
+        for (int i = 0; i < 200; i++)
+            serve(limit, 1, i < 100 ? FAST : SLOW);
+        assertEquals(20, limit.getLimit());
+    }
+
+    // 'concurrency' requests in flight, one of which completes after 'latency'
+    private static void serve(GradientConcurrencyLimit limit, int concurrency, long latency) {
+        for (int i = 0; i < concurrency; i++)
+            assertTrue(limit.tryAcquire());
+        limit.release(latency);
+        for (int i = 1; i < concurrency; i++)
+            limit.release(-1);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.config;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// two embedded H2 databases stand in for the primary and a replica, each knows its own name
+class ReadWriteRoutingDataSourceTest {
+
+    private FailingDataSource replica;
+    private ReadWriteRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWriteTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    public void init() {
+
+        replica = new FailingDataSource(database("replica"));
+        routingDataSource = new ReadWriteRoutingDataSource(database("primary"), List.of(replica));
+
+        var dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        var transactionManager = new DataSourceTransactionManager(dataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReadWriteRoutingDataSource.setPrimaryOnly(false);
+    }
+
+    @Test
+    void testRoutesReadOnlyTransactionsToReplica() {
+
+        assertEquals("replica", readOnlyTransaction.execute(status -> databaseName()));
+        assertEquals("primary", readWriteTransaction.execute(status -> databaseName()));
+        assertEquals("primary", databaseName());
+    }
+
+    @Test
+    void testRoundRobinsOverReplicas() {
+
+        routingDataSource = new ReadWriteRoutingDataSource(database("primary"),
+                List.of(database("replica"), database("second-replica")));
+        var dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnlyTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnlyTransaction.setReadOnly(true);
+
+        var databases = new ArrayList<String>();
+        for (int i = 0; i < 4; i++) {
+            databases.add(readOnlyTransaction.execute(status -> databaseName()));
+        }
+        assertEquals(List.of("replica", "second-replica", "replica", "second-replica"), databases);
+    }
+
+    @Test
+    void testPrimaryOnly() {
+        ReadWriteRoutingDataSource.setPrimaryOnly(true);
+        assertEquals("primary", readOnlyTransaction.execute(status -> databaseName()));
+    }
+
+    @Test
+    void testFallsBackToPrimaryUntilReplicaIsHealthy() {
+
+        replica.down = true;
+        assertEquals("primary", readOnlyTransaction.execute(status -> databaseName()));
+        assertEquals(0, routingDataSource.healthyReplicas());
+
+        // skipped even once it is back, until a health check has seen it
+        replica.down = false;
+        assertEquals("primary", readOnlyTransaction.execute(status -> databaseName()));
+
+        routingDataSource.checkReplicas();
+        assertEquals(1, routingDataSource.healthyReplicas());
+        assertEquals("replica", readOnlyTransaction.execute(status -> databaseName()));
+
+        replica.down = true;
+        routingDataSource.checkReplicas();
+        assertEquals(0, routingDataSource.healthyReplicas());
+    }
+
+    @Test
+    void testReadYourWritesFilter() throws Exception {
+
+        var filter = new ReadYourWritesFilter(Duration.ofMillis(1500));
+
+        // a write sets the cookie and runs on the primary
+        var response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("PUT", "/api/employees/1"), response,
+                new MockFilterChain(new ReadingServlet()));
+        var cookie = response.getCookie(ReadYourWritesFilter.COOKIE);
+        assertEquals(2, cookie.getMaxAge());
+        assertEquals("primary", response.getContentAsString());
+
+        // so does a read that sends the cookie back
+        var request = new MockHttpServletRequest("GET", "/api/employees/1");
+        request.setCookies(cookie);
+        response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new ReadingServlet()));
+        assertEquals("primary", response.getContentAsString());
+
+        response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees/1"), response,
+                new MockFilterChain(new ReadingServlet()));
+        assertNull(response.getCookie(ReadYourWritesFilter.COOKIE));
+        assertEquals("replica", response.getContentAsString());
+    }
+
+    private String databaseName() {
+        return jdbcTemplate.queryForObject("SELECT name FROM database_name", String.class);
+    }
+
+    private static DataSource database(String name) {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        new JdbcTemplate(dataSource).execute("CREATE TABLE IF NOT EXISTS database_name AS SELECT '" + name + "' AS name");
+        return dataSource;
+    }
+
+    // a replica that can be taken down
+    private static class FailingDataSource extends DelegatingDataSource {
+
+        private volatile boolean down;
+
+        FailingDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down)
+                throw new SQLException("replica is down");
+            return super.getConnection();
+        }
+    }
+
+    // answers with the database a read-only transaction would read from
+    private class ReadingServlet extends HttpServlet {
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            String database = readOnlyTransaction.execute(status -> databaseName());
+            response.getWriter().write(database);
+        }
+    }
+}
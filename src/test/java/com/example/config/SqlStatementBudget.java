@@ -0,0 +1,69 @@
+package com.example.config;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Asserts how many SQL statements a block runs, listing them all when the count is off.
+ * Pending changes are flushed before the block, so they are not charged to it, and at its end,
+ * so that statements Hibernate defers until commit are.
+ * Id allocation from 'employees_seq' is left out, it runs once per allocation size and not once per call.
+ * Import it with '@Import(SqlStatementBudget.class)'.
+ */
+@TestComponent
+@RequiredArgsConstructor
+public class SqlStatementBudget {
+
+    private static final String ID_SEQUENCE = "employees_seq";
+
+    private final SqlStatementCounter sqlStatementCounter;
+    private final EntityManager entityManager;
+
+    public <T> T expect(int statements, Action<T> action) throws Exception {
+
+        flush();
+        sqlStatementCounter.start();
+        List<String> recorded;
+        T result;
+        try {
+            result = action.run();
+            flush();
+        } finally {
+            recorded = sqlStatementCounter.stop().stream()
+                    .filter(sql -> !sql.contains(ID_SEQUENCE))
+                    .toList();
+        }
+
+        assertEquals(statements, recorded.size(), () -> "expected " + statements + " SQL statement(s), but "
+                + recorded.size() + " ran:\n    " + String.join("\n    ", recorded));
+        return result;
+    }
+
+    public void expect(int statements, VoidAction action) throws Exception {
+        expect(statements, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void flush() {
+        if (TransactionSynchronizationManager.isActualTransactionActive())
+            entityManager.flush();
+    }
+
+    @FunctionalInterface
+    public interface Action<T> {
+        T run() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface VoidAction {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.employee;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void testQuotedFieldsAndLineBreaks() throws IOException {
+
+        var csv = new CsvReader(new StringReader("id,name,age\r\n"
+                + "1,\"Smith, John\",30\r\n"
+                + "2,\"say \"\"hi\"\"\",\n"
+                + "3,\"two\nlines\",40\n"
+                + "\n"
+                + "4,last,50"));
+
+        assertEquals(List.of("id", "name", "age"), csv.next());
+        assertEquals(List.of("1", "Smith, John", "30"), csv.next());
+        assertEquals(List.of("2", "say \"hi\"", ""), csv.next());
+        assertEquals(List.of("3", "two\nlines", "40"), csv.next());
+        assertEquals(4, csv.line());
+        assertEquals(List.of(""), csv.next());
+        assertEquals(List.of("4", "last", "50"), csv.next());
+        assertEquals(7, csv.line());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void testMalformedQuotes() throws IOException {
+
+        var unclosed = new CsvReader(new StringReader("id,name\n1,\"open\n"));
+        unclosed.next();
+        assertThrows(IOException.class, unclosed::next);
+
+        var trailing = new CsvReader(new StringReader("1,\"quoted\"x,2\n"));
+        assertThrows(IOException.class, trailing::next);
+    }
+
+    // a few million records streamed through the reader without ever being in memory together
+    @Test
+    void testStreamsMillionsOfRecords() throws IOException {
+
+        int records = 3_000_000;
+        var csv = new CsvReader(new GeneratedCsv(records));
+
+        long count = 0;
+        long ageSum = 0;
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            assertEquals("employee \"" + count + "\", imported", record.get(1));
+            ageSum += Integer.parseInt(record.get(2));
+            count++;
+        }
+
+        assertEquals(records, count);
+        assertEquals(records / 100 * (99 * 100 / 2), ageSum);
+        assertEquals(records, csv.line());
+    }
+
+    // '<id>,"employee ""<id>"", imported",<id % 100>' lines, generated as they are read
+    private static class GeneratedCsv extends Reader {
+
+        private final int records;
+        private final StringBuilder pending = new StringBuilder();
+        private int next;
+
+        GeneratedCsv(int records) {
+            this.records = records;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (pending.isEmpty()) {
+                if (next == records)
+                    return -1;
+                pending.append(next).append(",\"employee \"\"").append(next).append("\"\", imported\",")
+                        .append(next % 100).append("\r\n");
+                next++;
+            }
+            int read = Math.min(length, pending.length());
+            pending.getChars(0, read, buffer, offset);
+            pending.delete(0, read);
+            return read;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
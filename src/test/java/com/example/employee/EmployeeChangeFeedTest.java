@@ -0,0 +1,201 @@
+package com.example.employee;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// not @Transactional, changes are only announced once they commit; what it wrote is deleted after each test.
+// A pool of 2 connections that gives up waiting for one after a second, for long-polls to be held beyond it
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=1000"
+})
+@AutoConfigureMockMvc
+class EmployeeChangeFeedTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeChangeRepository employeeChangeRepository;
+
+    private final List<Long> written = new ArrayList<>();
+    private long since;
+
+    @BeforeEach
+    public void init() {
+        var last = employeeChangeRepository.findAll(PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "sequence")));
+        since = last.isEmpty() ? 0 : last.getContent().get(0).getSequence();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        employeeService.deleteAllById(written);
+    }
+
+    @Test
+    void testChangesComeInOrder() throws Exception {
+
+        var employee = employeeService.create(new Employee("changed", 30));
+        written.add(employee.getId());
+        employeeService.update(employee.getId(), new Employee("changed again", 31));
+        employeeService.deleteById(employee.getId());
+
+        var changes = changes(mvc.perform(MockMvcRequestBuilders.get("/api/employees/changes")
+                        .param("since", String.valueOf(since))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn());
+
+        assertEquals(List.of("INSERT changed 30 0", "UPDATE changed again 31 1", "DELETE changed again 31 1"),
+                changes.stream().map(change -> change.get("type").asText() + " " + change.get("name").asText()
+                        + " " + change.get("age").asInt() + " " + change.get("version").asLong()).toList());
+        changes.forEach(change -> assertEquals(employee.getId(), change.get("employeeId").asLong()));
+
+        // a consumer continues from the last sequence it got
+        var last = changes.get(changes.size() - 1).get("sequence").asLong();
+        assertEquals(List.of(), changes(mvc.perform(MockMvcRequestBuilders.get("/api/employees/changes")
+                        .param("since", String.valueOf(last)))
+                .andExpect(request().asyncStarted())
+                .andReturn()));
+    }
+
+    @Test
+    void testSetBasedWritesAreLogged() throws Exception {
+
+        var created = employeeService.createAll(List.of(new Employee("bulk changed one", 40), new Employee("bulk changed two", 50)).iterator());
+        assertEquals(2, created);
+
+        var inserted = employeeService.findChanges(since, null);
+        inserted.forEach(change -> written.add(change.getEmployeeId()));
+        assertEquals(List.of(EmployeeChange.Type.INSERT, EmployeeChange.Type.INSERT), inserted.stream().map(EmployeeChange::getType).toList());
+
+        employeeService.adjustAge(1, "bulk changed", 45, null);
+        employeeService.deleteAllById(written);
+
+        var changes = employeeService.findChanges(inserted.get(1).getSequence(), null);
+        assertEquals(List.of("UPDATE bulk changed two 51", "DELETE bulk changed one 40", "DELETE bulk changed two 51"),
+                changes.stream().map(change -> change.getType() + " " + change.getName() + " " + change.getAge()).toList());
+    }
+
+    @Test
+    void testLongPollIsAnsweredByTheNextChange() throws Exception {
+
+        var poll = mvc.perform(MockMvcRequestBuilders.get("/api/employees/changes")
+                        .param("since", String.valueOf(since))
+                        .param("wait", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        var employee = employeeService.create(new Employee("awaited", 60));
+        written.add(employee.getId());
+
+        var changes = changes(poll);
+
+        assertEquals(1, changes.size());
+        assertEquals(employee.getId(), changes.get(0).get("employeeId").asLong());
+    }
+
+    @Test
+    void testHeldLongPollsHoldNoConnection() throws Exception {
+
+        var held = new ArrayList<MvcResult>();
+        for (int i = 0; i < 3; i++)
+            held.add(mvc.perform(MockMvcRequestBuilders.get("/api/employees/changes")
+                            .param("since", String.valueOf(since))
+                            .param("wait", "10"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn());
+
+        // more polls held than the pool has connections, and the other endpoints still get one
+        mvc.perform(MockMvcRequestBuilders.get("/api/employees").param("limit", "1"))
+                .andExpect(status().isOk());
+
+        var employee = employeeService.create(new Employee("awaited by many", 61));
+        written.add(employee.getId());
+
+        for (var poll : held)
+            assertEquals(employee.getId(), changes(poll).get(0).get("employeeId").asLong());
+    }
+
+    @Test
+    void testChangesAreServedInCommitOrder() throws Exception {
+
+        var recorded = new CountDownLatch(1);
+        var commit = new CountDownLatch(1);
+        var first = new AtomicReference<Employee>();
+
+        // the first write records its change, then waits to commit
+        var writer = Executors.newSingleThreadExecutor();
+        var firstCommitted = writer.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            first.set(employeeService.create(new Employee("committed second", 70)));
+            recorded.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+
+        try {
+            assertTrue(recorded.await(10, TimeUnit.SECONDS));
+            written.add(first.get().getId());
+
+            // the second one, with the later sequence, commits first
+            var second = employeeService.create(new Employee("committed first", 71));
+            written.add(second.getId());
+
+            // it isn't served ahead of the uncommitted change, which a consumer going on from it would miss
+            assertEquals(List.of(), employeeService.findChanges(since, null));
+        } finally {
+            commit.countDown();
+            firstCommitted.get(10, TimeUnit.SECONDS);
+            writer.shutdown();
+        }
+
+        var changes = employeeService.findChanges(since, null);
+        assertEquals(List.of("committed second", "committed first"), changes.stream().map(EmployeeChange::getName).toList());
+    }
+
+    // the response of a (possibly held) poll
+    private List<JsonNode> changes(MvcResult poll) throws Exception {
+        var json = mvc.perform(MockMvcRequestBuilders.asyncDispatch(poll))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+        return new ObjectMapper().readValue(json, new TypeReference<>() {});
+    }
+}
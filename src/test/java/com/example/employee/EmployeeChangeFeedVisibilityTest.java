@@ -0,0 +1,79 @@
+package com.example.employee;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the visibility delay of production (the other tests run without one), and no periodic checks in the meantime:
+// only the write itself can get its change to a held poll
+@SpringBootTest(properties = {
+        "employees.changes.visibility-delay=2s",
+        "employees.changes.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+class EmployeeChangeFeedVisibilityTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeChangeRepository employeeChangeRepository;
+
+    private final List<Long> written = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        employeeService.deleteAllById(written);
+    }
+
+    @Test
+    void testLongPollGetsTheChangeOnceItIsVisible() throws Exception {
+
+        var last = employeeChangeRepository.findAll(PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "sequence")));
+        var since = last.isEmpty() ? 0 : last.getContent().get(0).getSequence();
+
+        var poll = mvc.perform(MockMvcRequestBuilders.get("/api/employees/changes")
+                        .param("since", String.valueOf(since))
+                        .param("wait", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        long start = System.nanoTime();
+        var employee = employeeService.create(new Employee("visible later", 62));
+        written.add(employee.getId());
+
+        // held back while the delay runs, at first the change isn't served
+        assertEquals(List.of(), employeeService.findChanges(since, null));
+
+        var json = mvc.perform(MockMvcRequestBuilders.asyncDispatch(poll))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+        List<JsonNode> changes = new ObjectMapper().readValue(json, new TypeReference<>() {});
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(1, changes.size());
+        assertEquals(employee.getId(), changes.get(0).get("employeeId").asLong());
+        assertTrue(millis >= 2000 && millis < 5000, "served after " + millis + " ms");
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.employee;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeColumnsTest {
+
+    @Test
+    void testRowsStayInIdOrder() {
+
+        var columns = new EmployeeColumns(2, 4);
+        columns.put(3L, "Anna", 44, 0L);
+        columns.put(1L, "Maxim", null, 0L);
+        columns.put(2L, null, 33, 0L);
+
+        assertEquals(List.of(
+                new EmployeeDto(1L, "Maxim", null, 0L),
+                new EmployeeDto(2L, null, 33, 0L),
+                new EmployeeDto(3L, "Anna", 44, 0L)), columns.page(Long.MIN_VALUE, 10));
+
+        assertEquals(List.of(new EmployeeDto(2L, null, 33, 0L)), columns.page(1L, 1));
+        assertTrue(columns.hasAfter(2L));
+        assertFalse(columns.hasAfter(3L));
+        assertEquals(List.of(), columns.page(3L, 10));
+    }
+
+    @Test
+    void testPutOverwritesAndRemoveDeletes() {
+
+        var columns = new EmployeeColumns(2, 4);
+        columns.put(1L, "Maxim", 22, 0L);
+        columns.put(2L, "Denis", 33, 0L);
+
+        columns.put(1L, "Maxim Ivanovich", 23, 1L);
+        // no version: the row's own is bumped
+        columns.put(2L, "Денис", 34, null);
+        // older than the row: ignored
+        columns.put(1L, "stale", 0, 0L);
+
+        assertEquals(List.of(
+                new EmployeeDto(1L, "Maxim Ivanovich", 23, 1L),
+                new EmployeeDto(2L, "Денис", 34, 1L)), columns.page(Long.MIN_VALUE, 10));
+
+        columns.remove(1L);
+        columns.remove(42L);
+
+        assertEquals(1, columns.size());
+        assertEquals(List.of(new EmployeeDto(2L, "Денис", 34, 1L)), columns.page(Long.MIN_VALUE, 10));
+    }
+
+    @Test
+    void testOverwrittenNamesAreReclaimed() {
+
+        var columns = new EmployeeColumns(1, 64);
+        for (int version = 0; version < 10_000; version++) {
+            columns.put(1L, "name " + version, 20, (long) version);
+        }
+
+        assertEquals(List.of(new EmployeeDto(1L, "name 9999", 20, 9999L)), columns.page(Long.MIN_VALUE, 10));
+        assertTrue(columns.heapBytes() < 1024, "names pool grew to " + columns.heapBytes() + " bytes");
+    }
+
+    @Test
+    void testRemoveAllKeepsTheRest() {
+
+        var columns = new EmployeeColumns(2, 4);
+        for (long id = 1; id <= 10_000; id++) {
+            columns.put(id, "name " + id, (int) (id % 100), 0L);
+        }
+
+        // every other row, and ids it doesn't have
+        columns.removeAll(LongStream.rangeClosed(0, 10_002).filter(id -> id % 2 == 0).boxed().toList());
+
+        assertEquals(5_000, columns.size());
+        var expected = new ArrayList<EmployeeDto>();
+        for (long id = 1; id <= 10_000; id += 2) {
+            expected.add(new EmployeeDto(id, "name " + id, (int) (id % 100), 0L));
+        }
+        assertEquals(expected, columns.page(Long.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(expected.subList(10, 20), columns.page(20L, 10));
+
+        // the space of the removed names is reused
+        columns.put(2L, "name 2", 2, 0L);
+        assertEquals(new EmployeeDto(2L, "name 2", 2, 0L), columns.page(1L, 1).get(0));
+    }
+
+    @Test
+    void testPageIsWrittenAsItsRows() throws Exception {
+
+        var columns = new EmployeeColumns(2, 4);
+        columns.put(1L, "Maxim \"Max\"", 22, 0L);
+        columns.put(2L, null, null, 3L);
+        columns.put(3L, "Денис", 34, 1L);
+
+        var page = columns.page(Long.MIN_VALUE, 10);
+        var objectMapper = new ObjectMapper().registerModule(new EmployeeJsonModule());
+
+        // to a stream, as the HTTP message converters write, and to a String
+        assertArrayEquals(new ObjectMapper().writeValueAsBytes(new ArrayList<>(page)), objectMapper.writeValueAsBytes(page));
+        assertArrayEquals(new ObjectMapper().writeValueAsBytes(new EmployeePage(new ArrayList<>(page), 3L)),
+                objectMapper.writeValueAsBytes(new EmployeePage(page, 3L)));
+        assertEquals(new ObjectMapper().writeValueAsString(new ArrayList<>(page)), objectMapper.writeValueAsString(page));
+    }
+}
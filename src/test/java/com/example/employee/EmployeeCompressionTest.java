@@ -0,0 +1,70 @@
+package com.example.employee;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// compression is done by the embedded Tomcat, which MockMvc leaves out; what it wrote is deleted after each test
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class EmployeeCompressionTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    private List<Long> written;
+
+    @BeforeEach
+    public void init() {
+        employeeService.createAll(IntStream.range(0, 50)
+                .mapToObj(i -> new Employee("compressed employee with a longer name " + i, 20 + i))
+                .iterator());
+        written = employeeService.findAll().stream()
+                .filter(employee -> employee.name().startsWith("compressed"))
+                .map(EmployeeDto::id)
+                .toList();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        employeeService.deleteAllById(written);
+    }
+
+    @Test
+    void testLargeResponsesAreCompressed() throws Exception {
+
+        var large = get("/api/employees?limit=50", "application/json");
+        assertEquals(200, large.statusCode());
+        assertEquals("gzip", large.headers().firstValue("Content-Encoding").orElse(null));
+
+        var cbor = get("/api/employees?limit=50", "application/cbor");
+        assertEquals("gzip", cbor.headers().firstValue("Content-Encoding").orElse(null));
+
+        // under 'server.compression.min-response-size'
+        var small = get("/api/employees/" + written.get(0), "application/json");
+        assertEquals(200, small.statusCode());
+        assertTrue(small.headers().firstValue("Content-Encoding").isEmpty());
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept)
+                .header("Accept-Encoding", "gzip")
+                .build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
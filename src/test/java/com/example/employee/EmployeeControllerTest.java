@@ -1,10 +1,12 @@
 package com.example.employee;
 
+import com.example.config.SqlStatementBudget;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -14,6 +16,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
@@ -22,12 +25,16 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 // You may use either '@WebMvcTest' or '@AutoConfigureMockMvc'
 // @WebMvcTest - loads only controller and its dependencies
 @AutoConfigureMockMvc // - loads full context
+@Import(SqlStatementBudget.class)
 @Transactional
 class EmployeeControllerTest {
 
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private SqlStatementBudget sqlStatements;
+
     @Autowired
     private EmployeeService employeeService;
 
@@ -45,12 +52,12 @@ class EmployeeControllerTest {
     @Test
     void testFindAll() throws Exception {
 
-        var response = mvc.perform(MockMvcRequestBuilders.get("/employees")
+        var response = sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/employees")
                     .contentType(MediaType.TEXT_HTML))
                 .andExpect(status().isOk())
                 .andExpect(view().name("employees/employees"))
                 .andReturn()
-                .getResponse();
+                .getResponse());
 
         String htmlReceived = new String(response.getContentAsByteArray());
 
@@ -59,17 +66,39 @@ class EmployeeControllerTest {
         }
     }
 
+    @Test
+    void testFindAllPaged() throws Exception {
+
+        long before = employees.get(0).getId() - 1;
+
+        var response = sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/employees")
+                    .param("after", String.valueOf(before))
+                    .param("limit", "2")
+                    .contentType(MediaType.TEXT_HTML))
+                .andExpect(status().isOk())
+                .andExpect(view().name("employees/employees"))
+                .andReturn()
+                .getResponse());
+
+        String htmlReceived = new String(response.getContentAsByteArray());
+
+        assertTrue(htmlReceived.contains(employees.get(0).getName()));
+        assertTrue(htmlReceived.contains(employees.get(1).getName()));
+        assertFalse(htmlReceived.contains(employees.get(2).getName()));
+        assertTrue(htmlReceived.contains("after=" + employees.get(1).getId()));
+    }
+
     @Test
     void testFindById() throws Exception {
 
         var employee = employees.get(1);
 
-        var response = mvc.perform(MockMvcRequestBuilders.get("/employees/{id}", employee.getId())
+        var response = sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/employees/{id}", employee.getId())
                     .contentType(MediaType.TEXT_HTML))
                 .andExpect(status().isOk())
                 .andExpect(view().name("employees/employee"))
                 .andReturn()
-                .getResponse();
+                .getResponse());
 
         String htmlReceived = new String(response.getContentAsByteArray());
 
@@ -77,21 +106,34 @@ class EmployeeControllerTest {
         assertTrue(htmlReceived.contains(String.valueOf(employee.getAge())));
     }
 
+    @Test
+    void testNotFound() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.get("/employees/{id}", -1L)
+                        .contentType(MediaType.TEXT_HTML))
+                .andExpect(status().isNotFound());
+
+        mvc.perform(MockMvcRequestBuilders.get("/employees/{id}/edit", -1L)
+                        .contentType(MediaType.TEXT_HTML))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void testCreate() throws Exception {
 
         var employee = new Employee("employee for posting", 99);
 
-        mvc.perform(MockMvcRequestBuilders.post("/employees")
+        // the INSERT and its change log entry
+        sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.post("/employees")
                     .contentType(MediaType.TEXT_HTML)
                     .param("name", employee.getName())
                     .param("age", String.valueOf(employee.getAge())))
                 .andExpect(status().isFound())
-                .andExpect(view().name("redirect:/employees"));
+                .andExpect(view().name("redirect:/employees")));
 
         assertTrue(employeeService.findAll().stream()
-                .anyMatch(e -> e.getName().equals(employee.getName())
-                            && e.getAge().equals(employee.getAge())));
+                .anyMatch(e -> e.name().equals(employee.getName())
+                            && e.age().equals(employee.getAge())));
     }
 
     @Test
@@ -99,12 +141,12 @@ class EmployeeControllerTest {
 
         var employee = employees.get(1);
 
-        var response = mvc.perform(MockMvcRequestBuilders.get("/employees/{id}/edit", employee.getId())
+        var response = sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/employees/{id}/edit", employee.getId())
                     .contentType(MediaType.TEXT_HTML))
                 .andExpect(status().isOk())
                 .andExpect(view().name("employees/edit"))
                 .andReturn()
-                .getResponse();
+                .getResponse());
 
         String htmlReceived = new String(response.getContentAsByteArray());
 
@@ -117,17 +159,17 @@ class EmployeeControllerTest {
 
         var employee = new Employee(employees.get(1).getId(), employees.get(1).getName(), employees.get(1).getAge());
 
-        mvc.perform(MockMvcRequestBuilders.put("/employees/{id}", employee.getId())
+        sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.put("/employees/{id}", employee.getId())
                     .contentType(MediaType.TEXT_HTML)
                     .param("name", employee.getName() + " updated")
                     .param("age", String.valueOf((employee.getAge() + 1) * 2)))
                 .andExpect(status().isFound())
-                .andExpect(view().name("redirect:/employees/" + employee.getId()));
+                .andExpect(view().name("redirect:/employees/" + employee.getId())));
 
         var employeeFromBase = employeeService.findById(employee.getId());
 
-        assertEquals(employeeFromBase.getName(), employee.getName() + " updated");
-        assertEquals(employeeFromBase.getAge(), (employee.getAge() + 1) * 2);
+        assertEquals(employeeFromBase.name(), employee.getName() + " updated");
+        assertEquals(employeeFromBase.age(), (employee.getAge() + 1) * 2);
     }
 
     @Test
@@ -135,17 +177,17 @@ class EmployeeControllerTest {
 
         var employeeForDeletion = employees.get(1);
 
-        mvc.perform(MockMvcRequestBuilders.delete("/employees/{id}", employeeForDeletion.getId())
+        sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.delete("/employees/{id}", employeeForDeletion.getId())
                     .contentType(MediaType.TEXT_HTML))
                 .andExpect(status().isFound())
-                .andExpect(view().name("redirect:/employees"));
+                .andExpect(view().name("redirect:/employees")));
 
         var employeesAfterDeletion = employeeService.findAll();
 
         assertEquals(employees.size()-1, employeesAfterDeletion.size());
 
         assertTrue(employeesAfterDeletion.stream()
-                .noneMatch(e -> e.getName().equals(employeeForDeletion.getName())
-                                && e.getAge().equals(employeeForDeletion.getAge())));
+                .noneMatch(e -> e.name().equals(employeeForDeletion.getName())
+                                && e.age().equals(employeeForDeletion.getAge())));
     }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.example.employee;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// an H2 database of its own, with Hibernate's MySQL dialect so that the ids come from the 'employees_seq' table,
+// holding the rows AUTO_INCREMENT numbered before there was a sequence; 'ddl-auto=update' adds the rest of the schema
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + EmployeeIdSequenceTest.URL,
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect"
+})
+class EmployeeIdSequenceTest {
+
+    static final String URL = "jdbc:h2:mem:id-sequence-test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final int EXISTING = 100;
+
+    static {
+        var database = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+        database.execute("CREATE TABLE employees (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), age INT, version BIGINT NOT NULL DEFAULT 0)");
+        for (int i = 0; i < EXISTING; i++)
+            database.update("INSERT INTO employees (name, age) VALUES (?, ?)", "existing " + i, i);
+    }
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Test
+    void testNewIdsFollowTheExistingOnes() {
+
+        var created = employeeService.create(new Employee("after identity", 30));
+        var batch = List.of(new Employee("batch one", 31), new Employee("batch two", 32));
+        employeeService.createAll(batch.iterator());
+
+        assertTrue(created.getId() > EXISTING);
+        batch.forEach(employee -> assertTrue(employee.getId() > EXISTING));
+        assertEquals(EXISTING + 3, employeeService.findAll().size());
+    }
+}
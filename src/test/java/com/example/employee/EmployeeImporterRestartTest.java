@@ -0,0 +1,124 @@
+package com.example.employee;
+
+import com.example.SpringBootTestApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// two runs of the application on the same database and import directory: the first one is shut down in the middle
+// of an import, the second one picks it up where it was left
+class EmployeeImporterRestartTest {
+
+    private static final int ROWS = 20_000;
+
+    @Test
+    void testImportGoesOnAfterRestart() throws Exception {
+
+        long id;
+        try (var context = start()) {
+            var importer = context.getBean(EmployeeImporter.class);
+            id = importer.submit(csv("restarted ")).getId();
+
+            EmployeeImport job;
+            while ((job = importer.status(id)).getRowsRead() == 0)
+                Thread.sleep(5);
+            assertEquals(EmployeeImport.Status.RUNNING, job.getStatus());
+            assertTrue(job.getRowsRead() < ROWS);
+        }
+
+        // every record exactly once: the chunks committed before the shutdown weren't imported again
+        assertImportedOnceAfterRestart(id, "restarted ");
+    }
+
+    // The shutdown comes while a chunk is stuck in its transaction (its progress waits for a lock this test holds,
+    // for longer than the test runs): it doesn't wait for the chunk beyond the stop timeout, the chunk rolls back
+    // and is imported on the next start
+    @Test
+    void testImportStuckAtShutdownGoesOnAfterRestart() throws Exception {
+
+        long id;
+        try (var context = start("employees.imports.stop-timeout=200ms",
+                "spring.datasource.hikari.connection-init-sql=SET LOCK_TIMEOUT 120000")) {
+            var importer = context.getBean(EmployeeImporter.class);
+            id = importer.submit(csv("stuck ")).getId();
+
+            while (importer.status(id).getRowsRead() == 0)
+                Thread.sleep(5);
+
+            var environment = context.getEnvironment();
+            var database = new DriverManagerDataSource(environment.getProperty("spring.datasource.url"),
+                    environment.getProperty("spring.datasource.username"), environment.getProperty("spring.datasource.password"));
+            try (var lock = database.getConnection()) {
+                lock.setAutoCommit(false);
+                try (var statement = lock.prepareStatement("SELECT * FROM employee_imports WHERE id = ? FOR UPDATE")) {
+                    statement.setLong(1, id);
+                    statement.executeQuery().close();
+                }
+                Thread.sleep(500); // for the next chunk to be inserted and wait for the lock
+
+                long stopping = System.nanoTime();
+                context.close();
+                assertTrue(System.nanoTime() - stopping < TimeUnit.SECONDS.toNanos(5), "the shutdown waited for the import");
+                lock.rollback();
+            }
+
+            // left to be resumed
+            var left = new JdbcTemplate(database)
+                    .queryForMap("SELECT status, rows_read FROM employee_imports WHERE id = ?", id);
+            assertEquals(EmployeeImport.Status.RUNNING.name(), left.get("status"));
+            assertTrue(((Number) left.get("rows_read")).longValue() < ROWS);
+        }
+
+        assertImportedOnceAfterRestart(id, "stuck ");
+    }
+
+    private static void assertImportedOnceAfterRestart(long id, String prefix) throws InterruptedException {
+
+        try (var context = start()) {
+            var importer = context.getBean(EmployeeImporter.class);
+            var employeeService = context.getBean(EmployeeService.class);
+
+            EmployeeImport job;
+            for (int i = 0; (job = importer.status(id)).getStatus() == EmployeeImport.Status.RUNNING && i < 1200; i++)
+                Thread.sleep(50);
+
+            var imported = employeeService.findAll().stream()
+                    .filter(employee -> employee.name().startsWith(prefix))
+                    .map(EmployeeDto::id)
+                    .toList();
+            employeeService.deleteAllById(imported);
+
+            assertEquals(EmployeeImport.Status.DONE, job.getStatus());
+            assertEquals(ROWS, job.getRowsRead());
+            assertEquals(ROWS, job.getRowsImported());
+            assertEquals(ROWS, imported.size());
+            assertFalse(Files.exists(Path.of(job.getFile())));
+        }
+    }
+
+    private static ByteArrayInputStream csv(String prefix) {
+        var csv = new StringBuilder("id,name,age\n");
+        for (int i = 0; i < ROWS; i++)
+            csv.append(',').append(prefix).append(i).append(',').append(i % 100).append('\n');
+        return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(SpringBootTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("employees.imports.chunk-size=100")
+                .properties(properties)
+                .run();
+    }
+}
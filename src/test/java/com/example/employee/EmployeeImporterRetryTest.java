@@ -0,0 +1,85 @@
+package com.example.employee;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmployeeImporterRetryTest {
+
+    @TempDir
+    private Path directory;
+
+    private EmployeeService employeeService;
+    private EmployeeImportRepository employeeImportRepository;
+    private EmployeeImporter importer;
+
+    private final List<String> imported = new ArrayList<>();
+
+    @BeforeEach
+    public void init() {
+
+        employeeService = mock(EmployeeService.class);
+        // the database goes away for the first chunk
+        when(employeeService.createAll(any()))
+                .thenThrow(new DataAccessResourceFailureException("Connection lost"))
+                .thenAnswer(invocation -> {
+                    Iterator<Employee> employees = invocation.getArgument(0);
+                    employees.forEachRemaining(employee -> imported.add(employee.getName()));
+                    return 2;
+                });
+
+        employeeImportRepository = mock(EmployeeImportRepository.class);
+        when(employeeImportRepository.save(any())).thenAnswer(invocation -> {
+            EmployeeImport job = invocation.getArgument(0);
+            job.setId(1L);
+            when(employeeImportRepository.findById(1L)).thenReturn(Optional.of(job));
+            return job;
+        });
+
+        var employeeProperties = new EmployeeProperties();
+        employeeProperties.getImports().setDirectory(directory);
+        employeeProperties.getImports().setChunkSize(2);
+        employeeProperties.getImports().setRetryDelay(Duration.ofMillis(10));
+
+        importer = new EmployeeImporter(employeeService, employeeImportRepository, employeeProperties,
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+        importer.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        importer.stop();
+    }
+
+    @Test
+    void testDatabaseErrorRetriesTheJob() throws Exception {
+
+        var job = importer.submit(new ByteArrayInputStream("id,name,age\n,one,1\n,two,2\n,three,3\n".getBytes(StandardCharsets.UTF_8)));
+
+        verify(employeeImportRepository, timeout(5000)).updateStatus(eq(1L), eq(EmployeeImport.Status.DONE), isNull(), any());
+        verify(employeeImportRepository, never()).updateStatus(eq(1L), eq(EmployeeImport.Status.FAILED), any(), any());
+
+        // the chunk that failed is read again, nothing is lost or imported twice
+        verify(employeeService, times(3)).createAll(any());
+        assertEquals(List.of("one", "two", "three"), imported);
+        assertFalse(Files.exists(Path.of(job.getFile())));
+    }
+}
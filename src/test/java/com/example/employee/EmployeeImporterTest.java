@@ -0,0 +1,147 @@
+package com.example.employee;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// not @Transactional, the import commits chunk by chunk on its own thread; what it wrote is deleted after each test
+@SpringBootTest(properties = "employees.imports.chunk-size=2")
+@AutoConfigureMockMvc
+class EmployeeImporterTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeImporter employeeImporter;
+
+    @Autowired
+    private EmployeeImportRepository employeeImportRepository;
+
+    @Autowired
+    private EmployeeProperties employeeProperties;
+
+    @AfterEach
+    public void cleanUp() {
+        employeeService.deleteAllById(imported().stream().map(EmployeeDto::id).toList());
+    }
+
+    @Test
+    void testImportRunsInTheBackground() throws Exception {
+
+        var csv = """
+                id,name,age
+                ,imported one,31
+                7,"imported, two",
+                ,,40
+                ,imported three,200
+                ,imported four,x
+                ,imported five,35
+                """;
+
+        var location = mvc.perform(MockMvcRequestBuilders.post("/api/employees/imports")
+                        .contentType(EmployeeExporter.CSV)
+                        .content(csv))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn()
+                .getResponse()
+                .getHeader("Location");
+
+        var job = awaitDone(location);
+        assertEquals("DONE", job.get("status").asText());
+        assertEquals(6, job.get("rowsRead").asLong());
+        assertEquals(3, job.get("rowsImported").asLong());
+        assertEquals(3, job.get("rowsRejected").asLong());
+        assertEquals("Line 4: name is missing", job.get("error").asText());
+        assertFalse(job.has("file"));
+
+        assertEquals(List.of("imported one 31", "imported, two null", "imported five 35"),
+                imported().stream().map(employee -> employee.name() + " " + employee.age()).toList());
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/employees/imports/{id}", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testMalformedFileFailsTheJob() throws Exception {
+
+        var location = mvc.perform(MockMvcRequestBuilders.post("/api/employees/imports")
+                        .contentType(EmployeeExporter.CSV)
+                        .content("id,age\n1,30\n"))
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse()
+                .getHeader("Location");
+
+        var job = awaitDone(location);
+        assertEquals("FAILED", job.get("status").asText());
+        assertTrue(job.get("error").asText().contains("'name' column"));
+    }
+
+    // as a restart finds a job a crash left behind: three records read (one chunk and a half) and committed
+    @Test
+    void testResumesAfterLastCommittedChunk() throws Exception {
+
+        var directory = employeeProperties.getImports().getDirectory();
+        Files.createDirectories(directory);
+        var file = Files.writeString(Files.createTempFile(directory, "employees-", ".csv"),
+                "id,name,age\n,imported one,1\n,imported two,2\n,imported three,3\n,imported four,4\n,imported five,5\n",
+                StandardCharsets.UTF_8);
+
+        var job = new EmployeeImport(file.toString());
+        job.setStatus(EmployeeImport.Status.RUNNING);
+        job.setStartedAt(Instant.now());
+        job.setRowsRead(3);
+        job.setRowsImported(3);
+        job = employeeImportRepository.save(job);
+
+        employeeImporter.run(job.getId());
+
+        job = employeeImporter.status(job.getId());
+        assertEquals(EmployeeImport.Status.DONE, job.getStatus());
+        assertEquals(5, job.getRowsRead());
+        assertEquals(5, job.getRowsImported());
+        assertEquals(List.of("imported four", "imported five"), imported().stream().map(EmployeeDto::name).toList());
+        assertFalse(Files.exists(Path.of(job.getFile())));
+    }
+
+    private List<EmployeeDto> imported() {
+        return employeeService.findAll().stream()
+                .filter(employee -> employee.name() != null && employee.name().startsWith("imported"))
+                .toList();
+    }
+
+    private JsonNode awaitDone(String location) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            var response = mvc.perform(MockMvcRequestBuilders.get(location))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse();
+            var job = new ObjectMapper().readTree(response.getContentAsByteArray());
+            if (!List.of("QUEUED", "RUNNING").contains(job.get("status").asText()))
+                return job;
+            Thread.sleep(50);
+        }
+        throw new AssertionError("The import did not finish");
+    }
+}
@@ -1,12 +1,19 @@
 package com.example.employee;
 
+import com.example.config.SqlStatementBudget;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -15,23 +22,38 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 // You may use either '@WebMvcTest' or '@AutoConfigureMockMvc'
 // @WebMvcTest - loads only controller and its dependencies
 @AutoConfigureMockMvc // - loads full context
+@Import(SqlStatementBudget.class)
 @Transactional
 class EmployeeRestControllerTest {
 
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private SqlStatementBudget sqlStatements;
+
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     private List<Employee> employees;
 
     @BeforeEach
@@ -46,11 +68,11 @@ class EmployeeRestControllerTest {
     @Test
     void testFindAll() throws Exception {
 
-        var response = mvc.perform(MockMvcRequestBuilders.get("/api/employees")
+        var response = sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andReturn()
-                .getResponse();
+                .getResponse());
 
         String jsonReceived = new String(response.getContentAsByteArray());
         List<Employee> employeesReceived = new ObjectMapper().readValue(jsonReceived, new TypeReference<>(){});
@@ -58,25 +80,222 @@ class EmployeeRestControllerTest {
         assertEquals(employees, employeesReceived);
     }
 
+    @Test
+    void testFindAllPaged() throws Exception {
+
+        long before = employees.get(0).getId() - 1;
+
+        var response = sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees")
+                        .param("after", String.valueOf(before))
+                        .param("limit", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse());
+
+        List<Employee> firstPage = new ObjectMapper().readValue(response.getContentAsByteArray(), new TypeReference<>(){});
+        assertEquals(employees.subList(0, 2), firstPage);
+
+        var link = response.getHeader(HttpHeaders.LINK);
+        assertTrue(link.contains("after=" + employees.get(1).getId()));
+        assertTrue(link.contains("limit=2"));
+        assertTrue(link.endsWith("rel=\"next\""));
+
+        response = sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees")
+                        .param("after", String.valueOf(employees.get(1).getId()))
+                        .param("limit", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse());
+
+        List<Employee> lastPage = new ObjectMapper().readValue(response.getContentAsByteArray(), new TypeReference<>(){});
+        assertEquals(employees.subList(2, 3), lastPage);
+        assertNull(response.getHeader(HttpHeaders.LINK));
+    }
+
+    @Test
+    void testSearch() throws Exception {
+
+        // 'test one' 11, 'test two' 22, 'test three' 33
+        var response = sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees/search")
+                        .param("namePrefix", "test t")
+                        .param("minAge", "20")
+                        .param("limit", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse());
+
+        List<Employee> firstPage = new ObjectMapper().readValue(response.getContentAsByteArray(), new TypeReference<>(){});
+        assertEquals(List.of(employees.get(1)), firstPage);
+
+        var link = response.getHeader(HttpHeaders.LINK);
+        assertTrue(link.contains("namePrefix=test"));
+        assertTrue(link.contains("minAge=20"));
+        assertTrue(link.contains("after=" + employees.get(1).getId()));
+
+        response = sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees/search")
+                        .param("namePrefix", "test t")
+                        .param("minAge", "20")
+                        .param("limit", "1")
+                        .param("after", String.valueOf(employees.get(1).getId()))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse());
+
+        List<Employee> secondPage = new ObjectMapper().readValue(response.getContentAsByteArray(), new TypeReference<>(){});
+        assertEquals(List.of(employees.get(2)), secondPage);
+
+        response = sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees/search")
+                        .param("namePrefix", "test%")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse());
+
+        assertEquals("[]", response.getContentAsString());
+    }
+
+    @Test
+    void testExportNdjson() throws Exception {
+
+        var response = sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees/export"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse());
+
+        assertTrue(response.getContentType().startsWith("application/x-ndjson"));
+
+        var objectMapper = new ObjectMapper();
+        var employeesReceived = new ArrayList<Employee>();
+        for (var line : response.getContentAsString().split("\n")) {
+            employeesReceived.add(objectMapper.readValue(line, Employee.class));
+        }
+
+        assertTrue(employeesReceived.containsAll(employees));
+    }
+
+    @Test
+    void testExportCsv() throws Exception {
+
+        var response = sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees/export")
+                        .param("format", "csv"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse());
+
+        assertTrue(response.getContentType().startsWith("text/csv"));
+
+        var lines = List.of(response.getContentAsString().split("\n"));
+        assertEquals("id,name,age", lines.get(0));
+
+        for (var employee : employees) {
+            assertTrue(lines.contains(employee.getId() + "," + employee.getName() + "," + employee.getAge()));
+        }
+
+        sqlStatements.expect(0, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees/export")
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest()));
+    }
+
     @Test
     void testFindById() throws Exception {
 
         var employee = employees.get(1);
 
-        var response = mvc.perform(MockMvcRequestBuilders.get("/api/employees/{id}", employee.getId())
+        var response = sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees/{id}", employee.getId())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andReturn()
-                .getResponse();
+                .getResponse());
 
         String jsonReceived = new String(response.getContentAsByteArray());
         var employeeReceived = new ObjectMapper().readValue(jsonReceived, Employee.class);
 
         assertEquals(employee, employeeReceived);
 
-        mvc.perform(MockMvcRequestBuilders.get("/api/employees/{id}", -1L)
+        // the second read is served from the cache
+        sqlStatements.expect(0, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees/{id}", employee.getId())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()));
+
+        sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees/{id}", -1L)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound()));
+    }
+
+    @Test
+    void testFindByIdIfNoneMatch() throws Exception {
+
+        var employee = employees.get(1);
+        var etag = "\"" + employee.getVersion() + "\"";
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/employees/{id}", employee.getId())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        // checked against the cached employee
+        var response = sqlStatements.expect(0, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees/{id}", employee.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn()
+                .getResponse());
+
+        assertEquals(0, response.getContentLength());
+
+        // changed since, the employee itself comes from the cache too
+        sqlStatements.expect(0, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees/{id}", employee.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"41\", W/\"42\"")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(jsonPath("$.name").value(employee.getName())));
+
+        // not cached, only the version is read
+        cacheManager.getCache(EmployeeService.EMPLOYEES_CACHE).evict(employee.getId());
+        sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees/{id}", employee.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified()));
+
+        sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees/{id}", -1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound()));
+    }
+
+    @Test
+    void testFindAllIfNoneMatch() throws Exception {
+
+        var etag = mvc.perform(MockMvcRequestBuilders.get("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        var response = sqlStatements.expect(1, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andReturn()
+                .getResponse());
+
+        assertEquals(0, response.getContentLength());
+
+        var employee = employees.get(2);
+        employeeService.update(employee.getId(), new Employee(employee.getName(), employee.getAge() + 1));
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/employees")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
                         .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isNotFound());
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
     }
 
     @Test
@@ -84,12 +303,13 @@ class EmployeeRestControllerTest {
 
         var employee = new Employee("employee for posting", 99);
 
-        var response = mvc.perform(MockMvcRequestBuilders.post("/api/employees")
+        // every write also appends to the change log, one INSERT ... SELECT however many rows it touched
+        var response = sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.post("/api/employees")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(new ObjectMapper().writeValueAsString(employee)))
                 .andExpect(status().isAccepted())
                 .andReturn()
-                .getResponse();
+                .getResponse());
 
         String jsonReceived = new String(response.getContentAsByteArray());
         var employeeReceived = new ObjectMapper().readValue(jsonReceived, Employee.class);
@@ -97,30 +317,164 @@ class EmployeeRestControllerTest {
         assertEquals(employee.getName(), employeeReceived.getName());
         assertEquals(employee.getAge(), employeeReceived.getAge());
 
-        assertEquals(employeeReceived, employeeService.findById(employeeReceived.getId()));
+        assertEquals(EmployeeDto.of(employeeReceived), employeeService.findById(employeeReceived.getId()));
+    }
+
+    @Test
+    void testCreateAll() throws Exception {
+
+        var batch = List.of(
+                new Employee("batch one", 51),
+                new Employee("batch two", 52),
+                new Employee("batch three", 53)
+        );
+
+        sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.post("/api/employees/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(batch)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.affected").value(batch.size())));
+
+        var ndjson = new StringBuilder();
+        for (var employee : batch) {
+            ndjson.append(new ObjectMapper().writeValueAsString(employee)).append('\n');
+        }
+
+        sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.post("/api/employees/batch")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson.toString()))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.affected").value(batch.size())));
+
+        var employeesAfterCreation = employeeService.findAll();
+
+        for (var employee : batch) {
+            assertEquals(2, employeesAfterCreation.stream()
+                    .filter(e -> e.name().equals(employee.getName())
+                            && e.age().equals(employee.getAge()))
+                    .count());
+        }
+
+        sqlStatements.expect(0, () -> mvc.perform(MockMvcRequestBuilders.post("/api/employees/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\": \"broken\", \"age\": \"not a number\"}]"))
+                .andExpect(status().isBadRequest()));
     }
 
     @Test
+    void testBinaryFormats() throws Exception {
+
+        var cbor = new CBORMapper();
+        var smile = new SmileMapper();
+
+        var response = mvc.perform(MockMvcRequestBuilders.get("/api/employees")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE))
+                .andReturn()
+                .getResponse();
+        assertEquals(employees, cbor.readValue(response.getContentAsByteArray(), new TypeReference<List<Employee>>(){}));
+
+        // the same resource in JSON takes more bytes
+        var json = mvc.perform(MockMvcRequestBuilders.get("/api/employees"))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+                .andReturn()
+                .getResponse();
+        assertTrue(response.getContentAsByteArray().length < json.getContentAsByteArray().length);
+
+        response = mvc.perform(MockMvcRequestBuilders.post("/api/employees")
+                        .contentType("application/x-jackson-smile")
+                        .accept("application/x-jackson-smile")
+                        .content(smile.writeValueAsBytes(new Employee("smile", 41))))
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse();
+        var created = smile.readValue(response.getContentAsByteArray(), Employee.class);
+        assertEquals(EmployeeDto.of(created), employeeService.findById(created.getId()));
+
+        mvc.perform(MockMvcRequestBuilders.post("/api/employees/batch")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .content(cbor.writeValueAsBytes(List.of(new Employee("cbor one", 42), new Employee("cbor two", 43)))))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.affected").value(2));
+        assertEquals(2, employeeService.findAll().stream().filter(e -> e.name().startsWith("cbor")).count());
+    }
+
+        @Test
     void testUpdate() throws Exception {
 
         var employee = employees.get(1);
 
-        var response = mvc.perform(MockMvcRequestBuilders.put("/api/employees/{id}", employee.getId())
+        // the UPDATE and the change log entry, nothing else: /api/employees/stats take the age replaced from the cached row, if any
+        var response = sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.put("/api/employees/{id}", employee.getId())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(new ObjectMapper().writeValueAsString(employee)))
                 .andExpect(status().isAccepted())
                 .andReturn()
-                .getResponse();
+                .getResponse());
 
         String jsonReceived = new String(response.getContentAsByteArray());
         var employeeReceived = new ObjectMapper().readValue(jsonReceived, Employee.class);
 
-        assertEquals(employee, employeeReceived);
+        // the body carried version 0, so the update was conditional on it
+        assertEquals(employee.getId(), employeeReceived.getId());
+        assertEquals(employee.getName(), employeeReceived.getName());
+        assertEquals(employee.getAge(), employeeReceived.getAge());
+        assertEquals(employee.getVersion() + 1, employeeReceived.getVersion());
+        assertEquals("\"" + employeeReceived.getVersion() + "\"", response.getHeader(HttpHeaders.ETAG));
 
-        mvc.perform(MockMvcRequestBuilders.put("/api/employees/{id}", -1L)
+        // the failed conditional update checks whether the employee exists at all
+        sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.put("/api/employees/{id}", -1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(new ObjectMapper().writeValueAsString(employee)))
-                .andExpect(status().isNotFound());
+                .andExpect(status().isNotFound()));
+    }
+
+    @Test
+    void testUpdateIfMatch() throws Exception {
+
+        var employee = employees.get(1);
+        var body = "{\"name\": \"if-match\", \"age\": 42}";
+
+        var response = sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.put("/api/employees/{id}", employee.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse());
+
+        assertEquals("\"1\"", response.getHeader(HttpHeaders.ETAG));
+
+        // a lost update: the employee is at version 1 now
+        sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.put("/api/employees/{id}", employee.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isPreconditionFailed()));
+
+        sqlStatements.expect(0, () -> mvc.perform(MockMvcRequestBuilders.put("/api/employees/{id}", employee.getId())
+                        .header(HttpHeaders.IF_MATCH, "W/\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isPreconditionFailed()));
+
+        response = sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.put("/api/employees/{id}", employee.getId())
+                        .header(HttpHeaders.IF_MATCH, "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse());
+
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+        assertEquals(2, employeeService.findVersionById(employee.getId()));
+
+        sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.put("/api/employees/{id}", -1L)
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isNotFound()));
     }
 
     @Test
@@ -128,16 +482,66 @@ class EmployeeRestControllerTest {
 
         var employeeForDeletion = employees.get(1);
 
-        mvc.perform(MockMvcRequestBuilders.delete("/api/employees/{id}", employeeForDeletion.getId())
+        // the change log entry and the DELETE, nothing else: /api/employees/stats take the age removed from the cached row, if any
+        sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.delete("/api/employees/{id}", employeeForDeletion.getId())
                         .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk()));
 
         var employeesAfterDeletion = employeeService.findAll();
 
         assertEquals(employees.size()-1, employeesAfterDeletion.size());
 
         assertTrue(employeesAfterDeletion.stream()
-                .noneMatch(e -> e.getName().equals(employeeForDeletion.getName())
-                        && e.getAge().equals(employeeForDeletion.getAge())));
+                .noneMatch(e -> e.name().equals(employeeForDeletion.getName())
+                        && e.age().equals(employeeForDeletion.getAge())));
+    }
+
+    @Test
+    void testDeleteAllById() throws Exception {
+
+        sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.delete("/api/employees")
+                        .param("ids", employees.get(0).getId() + "," + employees.get(2).getId())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(2)));
+
+        assertEquals(List.of(EmployeeDto.of(employees.get(1))), employeeService.findAll());
+    }
+
+    @Test
+    void testAdjustAge() throws Exception {
+
+        sqlStatements.expect(2, () -> mvc.perform(MockMvcRequestBuilders.patch("/api/employees/age")
+                        .param("delta", "5")
+                        .param("minAge", "20")
+                        .param("maxAge", "30")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(1)));
+
+        assertEquals(27, employeeService.findById(employees.get(1).getId()).age());
+        assertEquals(11, employeeService.findById(employees.get(0).getId()).age());
+    }
+
+    @Test
+    void testRequestMetrics() throws Exception {
+
+        var handler = "EmployeeRestController#findAll";
+        var statements = meterRegistry.find("http.server.requests.sql.statements").tag("handler", handler).summary();
+        long requestsBefore = statements != null ? statements.count() : 0;
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        assertNotNull(meterRegistry.find("http.server.requests").tag("handler", handler).timer());
+
+        statements = meterRegistry.get("http.server.requests.sql.statements").tag("handler", handler).summary();
+        assertEquals(requestsBefore + 1, statements.count());
+        assertTrue(statements.max() >= 1);
+
+        // the request went through the read limit, and has given its permit back
+        assertEquals(0, meterRegistry.get("http.server.concurrency.in.flight").tag("requests", "read").gauge().value());
+        assertTrue(meterRegistry.get("http.server.concurrency.limit").tag("requests", "read").gauge().value() >= 4);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+package com.example.employee;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// not @Transactional, the writer commits on its own thread; what it wrote is deleted after each test
+@SpringBootTest(properties = "employees.write-behind.enabled=true")
+@AutoConfigureMockMvc
+class EmployeeRestControllerWriteBehindTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    private final List<Long> written = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        employeeService.deleteAllById(written);
+    }
+
+    @Test
+    void testCreateIsWrittenBehind() throws Exception {
+
+        var employee = new Employee("employee written behind", 77);
+
+        var response = mvc.perform(MockMvcRequestBuilders.post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(employee)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.trackingId").isString())
+                .andReturn()
+                .getResponse();
+
+        var write = new ObjectMapper().readValue(response.getContentAsByteArray(), EmployeeWrite.class);
+        var location = response.getHeader(HttpHeaders.LOCATION);
+        assertTrue(location.endsWith("/api/employees/pending/" + write.trackingId()));
+
+        var done = awaitWritten(write.trackingId());
+        assertEquals(EmployeeWrite.Status.DONE, done.status());
+        written.add(done.id());
+
+        var employeeWritten = employeeService.findById(done.id());
+        assertEquals(employee.getName(), employeeWritten.name());
+        assertEquals(employee.getAge(), employeeWritten.age());
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/employees/pending/{trackingId}", "unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    private EmployeeWrite awaitWritten(String trackingId) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            var response = mvc.perform(MockMvcRequestBuilders.get("/api/employees/pending/{trackingId}", trackingId))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse();
+            var write = new ObjectMapper().readValue(response.getContentAsByteArray(), EmployeeWrite.class);
+            if (write.status() != EmployeeWrite.Status.PENDING)
+                return write;
+            Thread.sleep(10);
+        }
+        return fail("still pending: " + trackingId);
+    }
+}
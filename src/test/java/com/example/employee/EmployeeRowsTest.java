@@ -0,0 +1,57 @@
+package com.example.employee;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeRowsTest {
+
+    // ids 1..10, each read recorded as 'after:size'
+    private final List<String> reads = new ArrayList<>();
+
+    private EmployeePage read(long after, int size) {
+        reads.add(after + ":" + size);
+        var content = LongStream.rangeClosed(after + 1, Math.min(after + size, 10))
+                .mapToObj(id -> new EmployeeDto(id, "employee " + id, null, 0L))
+                .toList();
+        return new EmployeePage(content, after + size < 10 ? after + size : null);
+    }
+
+    @Test
+    void testChunksAreReadAsTheRowsAreIterated() {
+
+        var rows = new EmployeeRows(0, 5, 2, this::read);
+        assertEquals(List.of(), reads);
+
+        assertEquals(1L, rows.next().id());
+        assertEquals(List.of("0:2"), reads);
+        assertEquals(2L, rows.next().id());
+        assertEquals(List.of("0:2"), reads);
+        assertEquals(3L, rows.next().id());
+        assertEquals(List.of("0:2", "2:2"), reads);
+        assertNull(rows.getNextCursor());
+
+        rows.forEachRemaining(employee -> {
+        });
+        // the last chunk only asks for what is left of the page
+        assertEquals(List.of("0:2", "2:2", "4:1"), reads);
+        assertEquals(5L, rows.getNextCursor());
+    }
+
+    @Test
+    void testLastPage() {
+
+        var rows = new EmployeeRows(6, 5, 2, this::read);
+
+        var ids = new ArrayList<Long>();
+        rows.forEachRemaining(employee -> ids.add(employee.id()));
+
+        assertEquals(List.of(7L, 8L, 9L, 10L), ids);
+        assertEquals(List.of("6:2", "8:2"), reads);
+        assertNull(rows.getNextCursor());
+    }
+}
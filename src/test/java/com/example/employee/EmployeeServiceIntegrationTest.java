@@ -8,10 +8,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -27,6 +37,9 @@ class EmployeeServiceIntegrationTest {
     @MockBean
     private EmployeeRepository employeeRepository;
 
+    @MockBean
+    private EmployeeChangeRepository employeeChangeRepository;
+
     private List<Employee> employees;
 
     @BeforeEach
@@ -40,9 +53,9 @@ class EmployeeServiceIntegrationTest {
 
     @Test
     void testFindAll() {
-        when(employeeRepository.findAll()).thenReturn(employees);
+        when(employeeRepository.findAllProjectedBy()).thenReturn(employees.stream().map(EmployeeDto::of).toList());
         employeeService.findAll();
-        verify(employeeRepository, times(1)).findAll();
+        verify(employeeRepository, times(1)).findAllProjectedBy();
     }
 
     @Test
@@ -50,10 +63,77 @@ class EmployeeServiceIntegrationTest {
 
         var employee = employees.get(0);
         long id = employee.getId();
-        when(employeeRepository.findById(id)).thenReturn(Optional.of(employee));
+        when(employeeRepository.findProjectedById(id)).thenReturn(Optional.of(EmployeeDto.of(employee)));
 
         employeeService.findById(id);
-        verify(employeeRepository, times(1)).findById(id);
+        verify(employeeRepository, times(1)).findProjectedById(id);
+    }
+
+    @Test
+    void testFindByIdCoalescesConcurrentCalls() throws Exception {
+
+        var employee = new EmployeeDto(42L, "hot employee", 42, 0L);
+        when(employeeRepository.findProjectedById(42L)).thenAnswer(invocation -> {
+            Thread.sleep(300); // a slow query, so that all callers arrive while it is in flight
+            return Optional.of(employee);
+        });
+
+        int callers = 8;
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(callers);
+        try {
+            var results = new ArrayList<Future<EmployeeDto>>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return employeeService.findById(42L);
+                }));
+            }
+            start.countDown();
+
+            for (var result : results) {
+                assertEquals(employee, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(employeeRepository, times(1)).findProjectedById(42L);
+    }
+
+    @Test
+    void testReadRacingAnUpdateIsNotCached() throws Exception {
+
+        var before = new EmployeeDto(43L, "racing employee", 43, 0L);
+        var after = new EmployeeDto(43L, "racing employee", 44, 1L);
+        var inQuery = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(employeeRepository.findProjectedById(43L))
+                .thenAnswer(invocation -> {
+                    inQuery.countDown();
+                    release.await(); // read the row before the update, is slow to return it
+                    return Optional.of(before);
+                })
+                .thenReturn(Optional.of(after));
+        when(employeeRepository.updateById(43L, "racing employee", 44, null)).thenReturn(1);
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var slowRead = executor.submit(() -> employeeService.findById(43L));
+            assertTrue(inQuery.await(5, TimeUnit.SECONDS));
+
+            employeeService.update(43L, new Employee("racing employee", 44));
+
+            // doesn't join the read that started before the update, nor does that one's result get cached once it is back
+            assertEquals(after, employeeService.findById(43L));
+            release.countDown();
+            assertEquals(before, slowRead.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(after, employeeService.findById(43L));
+        verify(employeeRepository, times(2)).findProjectedById(43L);
     }
 
     @Test
@@ -70,22 +150,23 @@ class EmployeeServiceIntegrationTest {
     void testUpdate() {
 
         var employee = employees.get(0);
-        when(employeeRepository.save(employee)).thenReturn(employee);
-        when(employeeRepository.existsById(employee.getId())).thenReturn(true);
-        when(employeeRepository.existsById(-1L)).thenReturn(false);
+        when(employeeRepository.updateById(employee.getId(), employee.getName(), employee.getAge(), null)).thenReturn(1);
+        when(employeeRepository.updateById(eq(-1L), any(), any(), any())).thenReturn(0);
 
-        employeeService.update(employee.getId(), employee);
-        verify(employeeRepository, times(1)).existsById(employee.getId());
-        verify(employeeRepository, times(1)).save(employee);
+        assertEquals(employee, employeeService.update(employee.getId(), employee));
+        verify(employeeRepository, times(1)).updateById(employee.getId(), employee.getName(), employee.getAge(), null);
+
+        assertNull(employeeService.update(-1L, employees.get(1)));
+        verify(employeeRepository, times(1)).updateById(-1L, employees.get(1).getName(), employees.get(1).getAge(), null);
 
-        employeeService.update(-1L, employees.get(1));
-        verify(employeeRepository, times(1)).existsById(-1L);
-        verify(employeeRepository, never()).save(employees.get(1));
+        verify(employeeRepository, never()).existsById(anyLong());
+        verify(employeeRepository, never()).save(any());
     }
 
     @Test
     void testDeleteById() {
         employeeService.deleteById(1L);
-        verify(employeeRepository, times(1)).deleteById(anyLong());
+        verify(employeeRepository, times(1)).deleteEmployeeById(1L);
+        verify(employeeRepository, never()).deleteById(anyLong());
     }
 }
\ No newline at end of file
@@ -1,11 +1,15 @@
 package com.example.employee;
 
+import com.example.config.SqlStatementBudget;
+import com.example.config.SqlStatementCounter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -15,6 +19,7 @@ import static org.mockito.Mockito.*;
 
 @SpringBootTest
 @Transactional
+@Import(SqlStatementBudget.class)
 class EmployeeServiceTest {
 
     @Autowired
@@ -23,6 +28,12 @@ class EmployeeServiceTest {
     @SpyBean
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private SqlStatementBudget sqlStatements;
+
     private List<Employee> employees;
 
     @BeforeEach
@@ -38,36 +49,79 @@ class EmployeeServiceTest {
     }
 
     @Test
-    void testFindAll() {
-        assertEquals(employees, employeeService.findAll());
-        verify(employeeRepository, times(1)).findAll();
+    void testFindAll() throws Exception {
+        assertEquals(employees.stream().map(EmployeeDto::of).toList(), sqlStatements.expect(1, () -> employeeService.findAll()));
+        verify(employeeRepository, times(1)).findAllProjectedBy();
+    }
+
+    @Test
+    void testFindPage() throws Exception {
+
+        var page = sqlStatements.expect(1, () -> employeeService.findPage(employees.get(0).getId(), 10));
+        assertEquals(employees.subList(1, 3).stream().map(EmployeeDto::of).toList(), page.content());
+
+        // the page after the last one is a query all the same
+        assertTrue(sqlStatements.expect(1, () -> employeeService.findPage(employees.get(2).getId(), 10)).content().isEmpty());
     }
 
     @Test
     void testFindById() {
 
         for (var employee : employees) {
-            assertEquals(employee, employeeService.findById(employee.getId()));
-            verify(employeeRepository, times(1)).findById(employee.getId());
+            assertEquals(EmployeeDto.of(employee), employeeService.findById(employee.getId()));
+            verify(employeeRepository, times(1)).findProjectedById(employee.getId());
         }
 
-        verify(employeeRepository, times(employees.size())).findById(anyLong());
+        verify(employeeRepository, times(employees.size())).findProjectedById(anyLong());
 
         assertNull(employeeService.findById(-1L));
     }
 
     @Test
-    void testCreate() {
+    void testFindByIdIsCached() {
+
+        var employee = employees.get(0);
 
+        assertEquals(EmployeeDto.of(employee), employeeService.findById(employee.getId()));
+        assertEquals(EmployeeDto.of(employee), employeeService.findById(employee.getId()));
+        verify(employeeRepository, times(1)).findProjectedById(employee.getId());
+
+        var updatedName = employee.getName() + " updated";
+        employeeService.update(employee.getId(), new Employee(updatedName, employee.getAge()));
+
+        assertEquals(updatedName, employeeService.findById(employee.getId()).name());
+        verify(employeeRepository, times(2)).findProjectedById(employee.getId());
+
+        employeeService.deleteById(employee.getId());
+
+        assertNull(employeeService.findById(employee.getId()));
+        verify(employeeRepository, times(3)).findProjectedById(employee.getId());
+    }
+
+    @Test
+    void testCreate() throws Exception {
+
+        // the insert and its change record
         var employee = new Employee("test employee", 99);
-        var employeeCreated = employeeService.create(employee);
+        var employeeCreated = sqlStatements.expect(2, () -> employeeService.create(employee));
 
         assertEquals(employee.getName(), employeeCreated.getName());
         assertEquals(employee.getAge(), employeeCreated.getAge());
 
         verify(employeeRepository, times(1)).save(employee);
 
-        assertEquals(employeeCreated, employeeService.findById(employeeCreated.getId()));
+        assertEquals(EmployeeDto.of(employeeCreated), employeeService.findById(employeeCreated.getId()));
+    }
+
+    @Test
+    void testCreateAll() throws Exception {
+
+        // one batch of inserts, and one INSERT ... SELECT of their change records
+        var batch = List.of(new Employee("batch one", 1), new Employee("batch two", 2), new Employee("batch three", 3));
+        assertEquals(3, sqlStatements.expect(2, () -> employeeService.createAll(batch.iterator())));
+
+        for (var employee : batch)
+            assertEquals(EmployeeDto.of(employee), employeeService.findById(employee.getId()));
     }
 
     @Test
@@ -75,21 +129,29 @@ class EmployeeServiceTest {
 
         for (var employee : employees) {
 
-            employee.setName(employee.getName() + " test");
-            employee.setAge((employee.getAge() + 1) * 2);
+            // a detached copy, as a request body would be (changing the managed entity would bump its version on flush)
+            var version = employee.getVersion();
+            var changes = new Employee(employee.getId(), employee.getName() + " test", (employee.getAge() + 1) * 2, version);
 
-            assertEquals(employee, employeeService.update(employee.getId(), employee));
+            var employeeUpdated = employeeService.update(employee.getId(), changes);
+            assertEquals(changes.getName(), employeeUpdated.getName());
+            assertEquals(changes.getAge(), employeeUpdated.getAge());
+            assertEquals(version + 1, employeeUpdated.getVersion());
 
-            verify(employeeRepository, times(1)).existsById(employee.getId());
-            verify(employeeRepository, times(1)).save(employee);
+            verify(employeeRepository, times(1)).updateById(employee.getId(), changes.getName(), changes.getAge(), version);
         }
 
-        verify(employeeRepository, times(employees.size())).save(any(Employee.class));
+        verify(employeeRepository, never()).existsById(anyLong());
+        verify(employeeRepository, never()).save(any(Employee.class));
 
         var employee = new Employee("wrong user", 88);
-        employeeService.update(-1L, employee);
-        verify(employeeRepository, times(1)).existsById(-1L);
-        verify(employeeRepository, never()).save(employee);
+        assertNull(employeeService.update(-1L, employee));
+        verify(employeeRepository, times(1)).updateById(-1L, employee.getName(), employee.getAge(), null);
+
+        // the entity still says version 0, the row is at 1 by now
+        var stale = employees.get(0);
+        assertThrows(OptimisticLockingFailureException.class, () -> employeeService.update(stale.getId(),
+                new Employee(stale.getId(), "stale", 1, stale.getVersion())));
     }
 
     @Test
@@ -99,11 +161,59 @@ class EmployeeServiceTest {
 
         for (var employee : employees) {
             employeeService.deleteById(employee.getId());
-            verify(employeeRepository, times(1)).deleteById(employee.getId());
+            verify(employeeRepository, times(1)).deleteEmployeeById(employee.getId());
         }
 
-        verify(employeeRepository, times(employees.size())).deleteById(anyLong());
+        verify(employeeRepository, times(employees.size())).deleteEmployeeById(anyLong());
+        verify(employeeRepository, never()).deleteById(anyLong());
 
         assertTrue(employeeService.findAll().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDeleteAllById() {
+
+        var ids = List.of(employees.get(0).getId(), employees.get(2).getId(), -1L);
+
+        assertEquals(2, employeeService.deleteAllById(ids));
+        verify(employeeRepository, times(1)).deleteEmployeesByIdIn(ids);
+
+        assertEquals(List.of(EmployeeDto.of(employees.get(1))), employeeService.findAll());
+    }
+
+    @Test
+    void testAdjustAge() {
+
+        // Maxim 22, Denis 33, Anna 44
+        assertEquals(2, employeeService.adjustAge(1, null, 30, null));
+        assertEquals(1, employeeService.adjustAge(-10, "Ma", null, null));
+        assertEquals(0, employeeService.adjustAge(5, "M%", null, null));
+
+        assertEquals(12, employeeService.findById(employees.get(0).getId()).age());
+        assertEquals(34, employeeService.findById(employees.get(1).getId()).age());
+        assertEquals(45, employeeService.findById(employees.get(2).getId()).age());
+    }
+
+    @Test
+    void testSearchOnlyFiltersByWhatIsGiven() {
+
+        sqlStatementCounter.start();
+        var page = employeeService.search("Ma", null, null, null, 10);
+        var statements = sqlStatementCounter.stop();
+
+        assertEquals(List.of(EmployeeDto.of(employees.get(0))), page.content());
+        assertEquals(1, statements.size());
+        var sql = statements.get(0).toLowerCase();
+        assertTrue(sql.contains(" like "));
+        // no '(? IS NULL OR ...)' left for the absent age filters, it would keep the indexes from being used
+        assertFalse(sql.contains(" is null"), sql);
+        assertFalse(sql.contains(".age>=") || sql.contains(".age<="), sql);
+
+        sqlStatementCounter.start();
+        page = employeeService.search(null, 30, 40, null, 10);
+        sql = sqlStatementCounter.stop().get(0).toLowerCase();
+
+        assertEquals(List.of(EmployeeDto.of(employees.get(1))), page.content());
+        assertFalse(sql.contains(" like "), sql);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.employee;
+
+import com.example.config.SqlStatementBudget;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// not @Transactional, the snapshot only takes a write in once it commits; what it wrote is deleted after each test
+@SpringBootTest(properties = "employees.snapshot.enabled=true")
+@AutoConfigureMockMvc
+@Import(SqlStatementBudget.class)
+class EmployeeSnapshotTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private SqlStatementBudget sqlStatements;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeSnapshot employeeSnapshot;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Long> written = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        employeeService.deleteAllById(written);
+    }
+
+    @Test
+    void testReadsAreServedWithoutQueries() throws Exception {
+
+        var first = employeeService.create(new Employee("snapshot first", 21));
+        var second = employeeService.create(new Employee("snapshot second", 22));
+        written.addAll(List.of(first.getId(), second.getId()));
+
+        var all = sqlStatements.expect(0, () -> employeeService.findAll());
+        assertTrue(all.containsAll(List.of(EmployeeDto.of(first), EmployeeDto.of(second))));
+
+        var page = sqlStatements.expect(0, () -> employeeService.findPage(first.getId() - 1, 1));
+        assertEquals(List.of(EmployeeDto.of(first)), page.content());
+        assertEquals(first.getId(), page.nextCursor());
+
+        var response = sqlStatements.expect(0, () -> mvc.perform(MockMvcRequestBuilders.get("/api/employees/export")
+                        .param("format", "csv"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse());
+        var lines = List.of(response.getContentAsString().split("\n"));
+        assertTrue(lines.contains(first.getId() + ",snapshot first,21"));
+        assertTrue(lines.contains(second.getId() + ",snapshot second,22"));
+
+        // its pages are written from its columns, as the same JSON and CBOR the rows would make
+        for (var format : List.of(new ObjectMapper(), new CBORMapper())) {
+            var body = mvc.perform(MockMvcRequestBuilders.get("/api/employees")
+                            .param("after", String.valueOf(first.getId() - 1))
+                            .param("limit", "2")
+                            .accept(format instanceof CBORMapper ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsByteArray();
+            assertEquals(List.of(EmployeeDto.of(first), EmployeeDto.of(second)),
+                    format.readValue(body, new TypeReference<List<EmployeeDto>>(){}));
+        }
+
+        // the snapshot holds what the table holds
+        assertEquals(readFromTable(), employeeService.findAll());
+    }
+
+    @Test
+    void testWritesAreApplied() throws Exception {
+
+        var response = mvc.perform(MockMvcRequestBuilders.post("/api/employees/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\": \"snapshot batch one\", \"age\": 31}, {\"name\": \"snapshot batch two\"}]"))
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse();
+        assertEquals(2, new ObjectMapper().readValue(response.getContentAsByteArray(), BulkResult.class).affected());
+
+        var created = employeeService.findAll().stream()
+                .filter(employee -> employee.name() != null && employee.name().startsWith("snapshot batch"))
+                .toList();
+        assertEquals(2, created.size());
+        created.forEach(employee -> written.add(employee.id()));
+
+        var one = created.get(0);
+        employeeService.update(one.id(), new Employee("snapshot batch updated", 32));
+        employeeService.deleteById(created.get(1).id());
+
+        var page = sqlStatements.expect(0, () -> employeeService.findPage(one.id() - 1, 1));
+        assertEquals(List.of(new EmployeeDto(one.id(), "snapshot batch updated", 32, 1L)), page.content());
+        assertEquals(readFromTable(), employeeService.findAll());
+    }
+
+    @Test
+    void testSetBasedWriteReloads() throws Exception {
+
+        var employee = employeeService.create(new Employee("snapshot adjusted", 40));
+        written.add(employee.getId());
+
+        employeeService.adjustAge(5, "snapshot adjusted", null, null);
+
+        // the snapshot is reloaded in the background, until then reads go to the table: either way they see the change
+        var expected = List.of(new EmployeeDto(employee.getId(), "snapshot adjusted", 45, 1L));
+        assertEquals(expected, employeeService.findPage(employee.getId() - 1, 1).content());
+
+        for (int i = 0; !employeeSnapshot.canServe() && i < 500; i++)
+            Thread.sleep(10);
+        var page = sqlStatements.expect(0, () -> employeeService.findPage(employee.getId() - 1, 1));
+        assertEquals(expected, page.content());
+    }
+
+    @Test
+    void testWritingTransactionReadsItsOwnWrites() {
+
+        var transaction = new TransactionTemplate(transactionManager);
+        var seen = transaction.execute(status -> {
+            var employee = employeeService.create(new Employee("snapshot uncommitted", 50));
+            var all = employeeService.findAll();
+            status.setRollbackOnly();
+            return all.contains(EmployeeDto.of(employee));
+        });
+
+        assertTrue(seen);
+        assertTrue(employeeService.findAll().stream().noneMatch(employee -> "snapshot uncommitted".equals(employee.name())));
+    }
+
+    private List<EmployeeDto> readFromTable() {
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> employeeRepository.findAllProjectedBy());
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.employee;
+
+import com.example.config.SqlStatementBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// not @Transactional, the statistics only change once a write commits; what it wrote is deleted after each test
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(SqlStatementBudget.class)
+class EmployeeStatsTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeStats employeeStats;
+
+    @Autowired
+    private SqlStatementBudget sqlStatements;
+
+    private final List<Long> written = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        employeeService.deleteAllById(written);
+    }
+
+    @Test
+    void testStatisticsFollowWrites() throws Exception {
+
+        employeeStats.reconcile();
+        var before = employeeStats.statistics();
+
+        var first = employeeService.create(new Employee("stats first", 1001));
+        var second = employeeService.create(new Employee("stats second", 1003));
+        written.add(first.getId());
+        written.add(second.getId());
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/employees/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(before.count() + 2))
+                .andExpect(jsonPath("$.maxAge").value(1003))
+                .andExpect(jsonPath("$.ageHistogram['1000-1009']").value(2));
+
+        employeeService.update(second.getId(), new Employee("stats second", 1012));
+        employeeService.deleteById(first.getId());
+
+        var statistics = employeeStats.statistics();
+        assertEquals(before.count() + 1, statistics.count());
+        assertEquals(1012, statistics.maxAge());
+        assertNull(statistics.ageHistogram().get("1000-1009"));
+        assertEquals(1L, statistics.ageHistogram().get("1010-1019"));
+
+        // the increments end up where a rebuild from the table does
+        employeeStats.reconcile();
+        assertEquals(statistics, employeeStats.statistics());
+    }
+
+    @Test
+    void testSetBasedWriteRebuildsStatistics() {
+
+        var employee = employeeService.create(new Employee("stats adjusted", 1001));
+        written.add(employee.getId());
+
+        employeeService.adjustAge(100, "stats adjusted", null, null);
+
+        var statistics = employeeStats.statistics();
+        assertEquals(1101, statistics.maxAge());
+        assertEquals(1L, statistics.ageHistogram().get("1100-1109"));
+    }
+
+    @Test
+    void testRejectedUpdateIsNotCounted() {
+
+        employeeStats.reconcile();
+        var before = employeeStats.statistics();
+
+        var employee = employeeService.create(new Employee("stats conflict", 1001));
+        written.add(employee.getId());
+        var stale = new Employee(employee.getId(), "stats conflict", 1012, 41L);
+        assertThrows(OptimisticLockingFailureException.class, () -> employeeService.update(employee.getId(), stale));
+
+        var statistics = employeeStats.statistics();
+        assertEquals(before.count() + 1, statistics.count());
+        assertEquals(1L, statistics.ageHistogram().get("1000-1009"));
+    }
+
+    @Test
+    void testCachedRowsAreAppliedAsDeltas() throws Exception {
+
+        var first = employeeService.create(new Employee("stats cached first", 1001));
+        var second = employeeService.create(new Employee("stats cached second", 1003));
+        written.add(first.getId());
+        written.add(second.getId());
+        employeeService.findById(first.getId());
+        employeeService.findById(second.getId());
+        employeeStats.reconcile();
+        var before = employeeStats.statistics();
+
+        // the rows are cached, their ages replaced are known: the statistics follow without a rebuild
+        employeeService.update(second.getId(), new Employee("stats cached second", 1012));
+        employeeService.deleteById(first.getId());
+        var statistics = sqlStatements.expect(0, () -> employeeStats.statistics());
+
+        assertEquals(before.count() - 1, statistics.count());
+        assertNull(statistics.ageHistogram().get("1000-1009"));
+        assertEquals(1L, statistics.ageHistogram().get("1010-1019"));
+
+        employeeStats.reconcile();
+        assertEquals(statistics, employeeStats.statistics());
+    }
+
+    @Test
+    void testConcurrentReadsShareOneRebuild() throws Exception {
+
+        var employeeRepository = mock(EmployeeRepository.class);
+        var inQuery = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(employeeRepository.countByAge()).thenAnswer(invocation -> {
+            inQuery.countDown();
+            release.await();
+            return List.of(new AgeCount(30, 2L));
+        });
+        var stats = new EmployeeStats(employeeRepository, new EmployeeProperties(), mock(PlatformTransactionManager.class));
+
+        int readers = 4;
+        var executor = Executors.newFixedThreadPool(readers);
+        try {
+            var results = new ArrayList<Future<EmployeeStatistics>>();
+            results.add(executor.submit(stats::statistics));
+            assertTrue(inQuery.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < readers; i++)
+                results.add(executor.submit(stats::statistics));
+            Thread.sleep(100); // the others arrive while the first one's query is running
+            release.countDown();
+
+            for (var result : results)
+                assertEquals(2, result.get(5, TimeUnit.SECONDS).count());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(employeeRepository, times(1)).countByAge();
+    }
+}
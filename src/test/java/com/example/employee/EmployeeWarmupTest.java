@@ -0,0 +1,34 @@
+package com.example.employee;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// a real server, so the warmup renders the pages through it
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = { "employees.warmup.enabled=true", "employees.warmup.iterations=3" })
+class EmployeeWarmupTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+
+    @Test
+    void testRunsBeforeReadiness() {
+
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, applicationAvailability.getReadinessState());
+        assertTrue(meterRegistry.get("application.warmup.time").timeGauge().value(TimeUnit.NANOSECONDS) > 0);
+
+        assertEquals(3, meterRegistry.get("http.server.requests").tag("handler", "EmployeeController#findAll").timer().count());
+        assertEquals(3, meterRegistry.get("http.server.requests").tag("handler", "EmployeeRestController#findAll").timer().count());
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.employee;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class EmployeeWriteBehindTest {
+
+    private EmployeeService employeeService;
+    private EmployeeProperties employeeProperties;
+    private EmployeeWriteBehind writeBehind;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final CountDownLatch writerBlocked = new CountDownLatch(1);
+    private final CountDownLatch releaseWriter = new CountDownLatch(1);
+
+    @BeforeEach
+    public void init() {
+
+        employeeService = mock(EmployeeService.class);
+        // the first batch blocks until released, so that the following ones pile up in the queue
+        when(employeeService.createAll(any())).thenAnswer(invocation -> {
+            if (batchSizes.isEmpty()) {
+                writerBlocked.countDown();
+                releaseWriter.await();
+            }
+            Iterator<Employee> employees = invocation.getArgument(0);
+            int count = 0;
+            while (employees.hasNext()) {
+                employees.next().setId(ids.incrementAndGet());
+                count++;
+            }
+            batchSizes.add(count);
+            return count;
+        });
+
+        employeeProperties = new EmployeeProperties();
+        employeeProperties.getWriteBehind().setCapacity(4);
+        employeeProperties.getBatch().setSize(3);
+
+        writeBehind = new EmployeeWriteBehind(employeeService, employeeProperties, new SimpleMeterRegistry());
+        writeBehind.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        releaseWriter.countDown();
+        writeBehind.stop();
+    }
+
+    @Test
+    void testWritesQueuedEmployeesInBatches() throws Exception {
+
+        var first = writeBehind.submit(new Employee("first", 20));
+        assertEquals(EmployeeWrite.Status.PENDING, first.status());
+        assertTrue(writerBlocked.await(5, TimeUnit.SECONDS));
+
+        var queued = new ArrayList<EmployeeWrite>();
+        for (int i = 0; i < 4; i++) {
+            queued.add(writeBehind.submit(new Employee("queued " + i, 30 + i)));
+        }
+        releaseWriter.countDown();
+
+        for (var write : queued) {
+            awaitWritten(write);
+        }
+        assertEquals(EmployeeWrite.Status.DONE, writeBehind.status(first.trackingId()).status());
+        assertEquals(1L, writeBehind.status(first.trackingId()).id());
+
+        // 1 while the writer was busy, then 4 queued at 3 per batch
+        assertEquals(List.of(1, 3, 1), batchSizes);
+    }
+
+    @Test
+    void testRefusesWhenQueueIsFull() throws Exception {
+
+        writeBehind.submit(new Employee("first", 20));
+        assertTrue(writerBlocked.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 4; i++) {
+            assertNotNull(writeBehind.submit(new Employee("queued " + i, 30 + i)));
+        }
+        assertNull(writeBehind.submit(new Employee("one too many", 40)));
+    }
+
+    @Test
+    void testStopDrainsQueue() throws Exception {
+
+        writeBehind.submit(new Employee("first", 20));
+        assertTrue(writerBlocked.await(5, TimeUnit.SECONDS));
+
+        var queued = new ArrayList<EmployeeWrite>();
+        for (int i = 0; i < 4; i++) {
+            queued.add(writeBehind.submit(new Employee("queued " + i, 30 + i)));
+        }
+
+        releaseWriter.countDown();
+        writeBehind.stop();
+
+        assertFalse(writeBehind.isRunning());
+        assertNull(writeBehind.submit(new Employee("too late", 50)));
+        for (var write : queued) {
+            assertEquals(EmployeeWrite.Status.DONE, writeBehind.status(write.trackingId()).status());
+        }
+    }
+
+    @Test
+    void testFailedBatchIsRetriedOneByOne() throws Exception {
+
+        releaseWriter.countDown();
+        writeBehind.stop();
+
+        reset(employeeService);
+        when(employeeService.createAll(any())).thenThrow(new IllegalStateException("batch failed"));
+        when(employeeService.create(any())).thenAnswer(invocation -> {
+            Employee employee = invocation.getArgument(0);
+            if (employee.getName() == null)
+                throw new IllegalArgumentException("name is required");
+            employee.setId(ids.incrementAndGet());
+            return employee;
+        });
+
+        writeBehind = new EmployeeWriteBehind(employeeService, employeeProperties, new SimpleMeterRegistry());
+        writeBehind.start();
+
+        var good = writeBehind.submit(new Employee("good", 20));
+        var bad = writeBehind.submit(new Employee(null, 30));
+
+        assertEquals(EmployeeWrite.Status.DONE, awaitWritten(good).status());
+        assertEquals(EmployeeWrite.Status.FAILED, awaitWritten(bad).status());
+        assertEquals("name is required", writeBehind.status(bad.trackingId()).error());
+    }
+
+    private EmployeeWrite awaitWritten(EmployeeWrite write) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            var status = writeBehind.status(write.trackingId());
+            if (status.status() != EmployeeWrite.Status.PENDING)
+                return status;
+            Thread.sleep(10);
+        }
+        return fail("still pending: " + write.trackingId());
+    }
+}